@@ -0,0 +1,165 @@
+package com.github.wu191287278.maven.swagger;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * 以 reactor(MavenSession) 为作用域的 classloader 池.
+ * <p>
+ * classpath 相同的模块共享同一个 URLClassLoader. 不再使用的 classloader 暂时保留以便后续模块复用,
+ * 空闲数量超过 {@link #MAX_IDLE} 时关闭最早空闲的一个. reactor 结束时(包括构建失败或提前结束)关闭全部 classloader,
+ * 所有预期执行插件的模块都已结束时提前关闭.
+ *
+ * @author yu.wu
+ */
+public class ClassLoaderPool {
+
+    public static final int MAX_IDLE = 4;
+
+    private static final Map<MavenSession, ClassLoaderPool> POOLS = new WeakHashMap<>();
+
+    private final Log log;
+
+    private final Set<String> pendingProjects;
+
+    private final Map<List<String>, Entry> entries = new HashMap<>();
+
+    private final LinkedHashSet<List<String>> idle = new LinkedHashSet<>();
+
+    private boolean closed;
+
+    private ClassLoaderPool(Set<String> expectedProjects, Log log) {
+        this.pendingProjects = new HashSet<>(expectedProjects);
+        this.log = log;
+    }
+
+    /**
+     * @param expectedProjects 本次 reactor 中会执行插件的模块 id, 仅在首次创建时使用
+     */
+    public static ClassLoaderPool forSession(MavenSession session, Set<String> expectedProjects, Log log) {
+        synchronized (POOLS) {
+            ClassLoaderPool pool = POOLS.get(session);
+            if (pool == null || pool.closed) {
+                pool = new ClassLoaderPool(expectedProjects, log);
+                POOLS.put(session, pool);
+                MavenExecutionRequest request = session.getRequest();
+                if (request != null) {
+                    request.setExecutionListener(new SessionEndListener(request.getExecutionListener(), pool::close));
+                }
+            }
+            return pool;
+        }
+    }
+
+    public synchronized Lease acquire(List<URL> urls, ClassLoader parent) {
+        List<String> key = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            key.add(url.toExternalForm());
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(URLClassLoader.newInstance(urls.toArray(new URL[]{}), parent));
+            entries.put(key, entry);
+            log.debug("Created classloader for " + urls.size() + " artifacts");
+        } else {
+            log.info("Reusing classloader shared with another module (" + urls.size() + " artifacts)");
+        }
+        idle.remove(key);
+        entry.references++;
+        return new Lease(key, entry.classLoader);
+    }
+
+    /**
+     * 模块执行结束(包括被跳过), 所有预期模块结束后提前关闭全部 classloader.
+     */
+    public synchronized void finished(MavenProject project) {
+        pendingProjects.remove(project.getId());
+        if (pendingProjects.isEmpty()) {
+            close();
+        }
+    }
+
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Entry entry : entries.values()) {
+            close(entry.classLoader);
+        }
+        if (!entries.isEmpty()) {
+            log.info("Closed " + entries.size() + " classloader(s)");
+        }
+        entries.clear();
+        idle.clear();
+        synchronized (POOLS) {
+            POOLS.values().remove(this);
+        }
+    }
+
+    private synchronized void release(List<String> key) {
+        Entry entry = entries.get(key);
+        if (entry == null || --entry.references > 0) {
+            return;
+        }
+        idle.add(key);
+        while (idle.size() > MAX_IDLE) {
+            Iterator<List<String>> iterator = idle.iterator();
+            List<String> eldest = iterator.next();
+            iterator.remove();
+            close(entries.remove(eldest).classLoader);
+        }
+    }
+
+    private void close(URLClassLoader classLoader) {
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            log.warn(e.getMessage());
+        }
+    }
+
+    private static class Entry {
+
+        private final URLClassLoader classLoader;
+
+        private int references;
+
+        private Entry(URLClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+    }
+
+    public class Lease implements AutoCloseable {
+
+        private final List<String> key;
+
+        private final ClassLoader classLoader;
+
+        private boolean released;
+
+        private Lease(List<String> key, ClassLoader classLoader) {
+            this.key = key;
+            this.classLoader = classLoader;
+        }
+
+        public ClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(key);
+            }
+        }
+    }
+}
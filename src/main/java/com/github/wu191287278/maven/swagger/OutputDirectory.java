@@ -0,0 +1,214 @@
+package com.github.wu191287278.maven.swagger;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import cn.hutool.crypto.digest.DigestUtil;
+
+/**
+ * 只在内容变化时写入的输出目录, 内容相同的重复构建不会触发下游的构建缓存失效、jar 重新打包以及 DevTools 重启.
+ * <p>
+ * 上次构建的 SHA-256 记录在目录下的 digest 清单中, 与清单一致且文件大小相同时跳过; 不在清单中的文件与现有内容比较.
+ * 清单只记录顶层文件以及 {@link #addTrackedDirectory} 中的文件, 其中本次不再输出的由 {@link #deleteStale()} 删除, 清单之外的文件不会被删除.
+ * 需要写入时先写入同目录的临时文件再原子替换, 读取方不会看到写了一半的文件.
+ * <p>
+ * 开启预压缩后 json/html 同时写入 .gz 文件, 静态资源服务器与 CDN 可以直接返回压缩内容. gzip 头部不含时间戳, 内容不变时压缩结果也不变,
+ * 因此内容与清单一致且 .gz 已存在时跳过压缩.
+ *
+ * @author yu.wu
+ */
+public class OutputDirectory {
+
+    private final File directory;
+
+    private final Map<String, String> previous = new HashMap<>();
+
+    private final Map<String, String> digests = new ConcurrentHashMap<>();
+
+    private final AtomicInteger written = new AtomicInteger();
+
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    private final List<String> trackedDirectories = new ArrayList<>();
+
+    private boolean precompress;
+
+    /**
+     * @param manifest 上次构建写入的 digest 清单(文件名=SHA-256), 为 null 时直接与现有文件比较
+     */
+    public OutputDirectory(File directory, String manifest) {
+        this.directory = directory;
+        File file = manifest == null ? null : new File(directory, manifest);
+        if (file != null && file.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                properties.load(in);
+            } catch (IOException ignore) {
+            }
+            for (String name : properties.stringPropertyNames()) {
+                previous.put(name, properties.getProperty(name));
+            }
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public OutputDirectory setPrecompress(boolean precompress) {
+        this.precompress = precompress;
+        return this;
+    }
+
+    /**
+     * 与顶层文件一样记录到清单并预压缩的子目录.
+     *
+     * @param directory 相对于输出目录的路径, 以 '/' 结尾
+     */
+    public OutputDirectory addTrackedDirectory(String directory) {
+        trackedDirectories.add(directory);
+        return this;
+    }
+
+    /**
+     * @param name 相对于输出目录的路径
+     * @return 内容变化并写入时返回 true
+     */
+    public boolean write(String name, byte[] content) throws IOException {
+        File file = new File(directory, name);
+        String digest = DigestUtil.sha256Hex(content);
+        digests.put(name, digest);
+        String recorded = previous.get(name);
+        boolean same = isUnchanged(file, recorded, digest, content);
+        if (isTracked(name) && (name.endsWith(".json") || name.endsWith(".html"))) {
+            File gz = new File(directory, name + ".gz");
+            if (!precompress) {
+                // 关闭预压缩后删除以前生成的 .gz, 避免返回过期内容
+                Files.deleteIfExists(gz.toPath());
+            } else if (same && recorded != null && gz.isFile()) {
+                // 与清单一致说明 .gz 由上次构建从相同内容压缩而来, 不再重新压缩
+                unchanged.incrementAndGet();
+            } else {
+                write(name + ".gz", gzip(content));
+            }
+        }
+        if (same) {
+            unchanged.incrementAndGet();
+            return false;
+        }
+        replace(file, content);
+        written.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 本次构建写入或确认未变化的文件的 SHA-256.
+     */
+    public String getDigest(String name) {
+        return digests.get(name);
+    }
+
+    /**
+     * 本次构建写入或确认未变化的顶层文件与记录的子目录中的文件(不含 .gz)及其 SHA-256, 按文件名排序.
+     */
+    public SortedMap<String, String> getOutputs() {
+        SortedMap<String, String> outputs = new TreeMap<>();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            if (isTracked(entry.getKey())) {
+                outputs.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * 删除上次清单中存在但本次构建没有输出的文件及其 .gz, 例如已删除的模块、tag 或关闭的格式. 应在全部写入完成后调用.
+     *
+     * @return 已删除的文件
+     */
+    public List<File> deleteStale() throws IOException {
+        List<File> deleted = new ArrayList<>();
+        for (String name : new TreeSet<>(previous.keySet())) {
+            if (digests.containsKey(name) || !isTracked(name)) {
+                continue;
+            }
+            for (File file : new File[]{new File(directory, name), new File(directory, name + ".gz")}) {
+                if (Files.deleteIfExists(file.toPath())) {
+                    deleted.add(file);
+                }
+            }
+            // 不再留下空的子目录, 例如已删除模块的分片目录
+            for (File parent = new File(directory, name).getParentFile(); !parent.equals(directory); parent = parent.getParentFile()) {
+                String[] remaining = parent.list();
+                if (remaining == null || remaining.length > 0) {
+                    break;
+                }
+                Files.deleteIfExists(parent.toPath());
+            }
+        }
+        return deleted;
+    }
+
+    public int getWritten() {
+        return written.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    private boolean isTracked(String name) {
+        if (name.endsWith(".gz") || name.indexOf('\\') >= 0) {
+            return false;
+        }
+        int slash = name.lastIndexOf('/');
+        return slash < 0 || trackedDirectories.stream().anyMatch(directory -> name.startsWith(directory) && name.indexOf('/', directory.length()) == slash);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 8);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isUnchanged(File file, String recorded, String digest, byte[] content) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        if (recorded != null) {
+            return recorded.equals(digest);
+        }
+        return Arrays.equals(Files.readAllBytes(file.toPath()), content);
+    }
+
+    private static void replace(File file, byte[] content) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        // java.nio 创建的临时文件权限为 600, 替换后会改变文件权限, 因此使用 File#createTempFile
+        Path temp = File.createTempFile("." + file.getName(), ".tmp", parent).toPath();
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
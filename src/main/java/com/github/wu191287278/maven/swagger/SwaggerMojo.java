@@ -2,39 +2,70 @@ package com.github.wu191287278.maven.swagger;
 
 import java.io.*;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.ZipUtil;
 import cn.hutool.http.HttpUtil;
-import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.github.wu191287278.maven.swagger.doc.GenerationContext;
 import com.github.wu191287278.maven.swagger.doc.SwaggerDocs;
-import com.github.wu191287278.maven.swagger.doc.visitor.ResolveSwaggerType;
+import com.github.wu191287278.maven.swagger.doc.concurrent.MemoryAwareScheduler;
+import com.github.wu191287278.maven.swagger.doc.jfr.Events;
+import com.github.wu191287278.maven.swagger.doc.jfr.Span;
+import com.github.wu191287278.maven.swagger.doc.report.CostReport;
+import com.github.wu191287278.maven.swagger.doc.spec.CompactSpec;
+import com.github.wu191287278.maven.swagger.doc.spec.TagShards;
 import com.google.common.collect.ImmutableMap;
 import io.swagger.models.Model;
 import io.swagger.models.Swagger;
 import io.swagger.models.properties.Property;
 import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Yaml;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.*;
 import org.apache.maven.project.MavenProject;
 
-@Mojo(name = "generate", defaultPhase = LifecyclePhase.COMPILE, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.COMPILE, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
 @Execute(phase = LifecyclePhase.COMPILE)
 public class SwaggerMojo extends AbstractMojo {
 
+    public static final String ETAG_MANIFEST = "swagger-etag.properties";
+
+    /**
+     * 分片按模块输出到 shards/模块名/ 下, 不会与其他模块的文档重名
+     */
+    public static final String SHARD_DIRECTORY = "shards/";
+
+    public static final String COST_REPORT = "swagger-cost-report.txt";
+
     @Parameter(defaultValue = "${project}", readonly = true, required = true)
     private MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
+    private PluginDescriptor plugin;
+
     @Parameter(name = "title", defaultValue = "Api Documentation")
     private String title;
 
@@ -89,8 +120,68 @@ public class SwaggerMojo extends AbstractMojo {
     @Parameter(name = "mergeModel", defaultValue = "")
     private String mergeModel;
 
+    @Parameter(name = "excludeTypes", defaultValue = "")
+    private String excludeTypes;
+
+    @Parameter(name = "protobufDescriptorPath", defaultValue = "")
+    private String protobufDescriptorPath;
+
+    @Parameter(name = "scanClasses", defaultValue = "false")
+    private Boolean scanClasses;
+
+    @Parameter(name = "minify", defaultValue = "false")
+    private Boolean minify;
+
+    @Parameter(name = "precompress", defaultValue = "false")
+    private Boolean precompress;
+
+    @Parameter(name = "formats", defaultValue = "json")
+    private String formats;
+
+    @Parameter(name = "shardByTag", defaultValue = "false")
+    private Boolean shardByTag;
+
+    @Parameter(name = "parallelism", defaultValue = "auto")
+    private String parallelism;
+
+    @Parameter(name = "minHeapHeadroom", defaultValue = "20")
+    private Integer minHeapHeadroom;
+
+    @Parameter(name = "solverFileCacheSize", defaultValue = "0")
+    private Long solverFileCacheSize;
+
+    @Parameter(name = "solverTypeCacheSize", defaultValue = "0")
+    private Long solverTypeCacheSize;
+
+    @Parameter(name = "maxResolveDepth", defaultValue = "0")
+    private Integer maxResolveDepth;
+
+    @Parameter(name = "maxEndpointTypes", defaultValue = "0")
+    private Integer maxEndpointTypes;
+
+    @Parameter(name = "maxTypes", defaultValue = "0")
+    private Integer maxTypes;
+
+    @Parameter(name = "unitTimeout", defaultValue = "0")
+    private Long unitTimeout;
+
+    @Parameter(name = "timeout", defaultValue = "0")
+    private Long timeout;
+
+    @Parameter(name = "costReportSize", defaultValue = "10")
+    private Integer costReportSize;
+
     @Override
     public void execute() {
+        ClassLoaderPool classLoaderPool = ClassLoaderPool.forSession(session, getExpectedProjects(), getLog());
+        try {
+            execute(classLoaderPool);
+        } finally {
+            classLoaderPool.finished(project);
+        }
+    }
+
+    private void execute(ClassLoaderPool classLoaderPool) {
         if (isSkip()) {
             return;
         }
@@ -125,35 +216,91 @@ public class SwaggerMojo extends AbstractMojo {
             }
             copyParent = copyParent.getParent();
         }
+        ClassLoader prevClassLoader = Thread.currentThread().getContextClassLoader();
+        List<URL> urls = new ArrayList<>();
         try {
-            List<URL> urls = new ArrayList<>();
             for (Artifact artifact : project.getArtifacts()) {
                 URL url = artifact.getFile().toURI().toURL();
                 urls.add(url);
             }
-            ClassLoader prevClassLoader = Thread.currentThread().getContextClassLoader();
-            URL[] jarUrlArray = urls.toArray(new URL[]{});
-            URLClassLoader cl = URLClassLoader.newInstance(jarUrlArray, prevClassLoader);
-            Thread.currentThread().setContextClassLoader(cl);
-            SwaggerDocs.CLASSLOADER = cl;
         } catch (Exception e) {
             getLog().warn(e.getMessage());
         }
 
+        try (ClassLoaderPool.Lease lease = classLoaderPool.acquire(urls, prevClassLoader);
+             MemoryAwareScheduler scheduler = MemoryAwareScheduler.of(getParallelism(), getMinHeapHeadroom())) {
+            GenerationContext context = new GenerationContext()
+                    .setDateFormat(getDateFormat())
+                    .setTimeFormat(getTimeFormat())
+                    .setDatetimeFormat(getDatetimeFormat())
+                    .setRecursionAncestor(getRecursionAncestor())
+                    .setModelPath(getModelPath())
+                    .setExcludeTypes(getExcludeTypes())
+                    .setProtobufDescriptorPath(resolveProtobufDescriptorPath())
+                    .setSolverFileCacheSize(getSolverFileCacheSize())
+                    .setSolverTypeCacheSize(getSolverTypeCacheSize())
+                    .setMaxResolveDepth(getMaxResolveDepth())
+                    .setMaxEndpointTypes(getMaxEndpointTypes())
+                    .setMaxTypes(getMaxTypes())
+                    .setUnitTimeout(getUnitTimeout())
+                    .setTimeout(getTimeout())
+                    .setClassLoader(lease.getClassLoader());
+            Thread.currentThread().setContextClassLoader(context.getClassLoader());
+            getLog().info("Parallelism: " + scheduler.getMaxParallelism() + ", min heap headroom: " + getMinHeapHeadroom() + "%");
+            generate(context, scheduler, copyParent, libs, includeArtifactIdsSet);
+            writeCostReport(context.getCostReport());
+        } finally {
+            Thread.currentThread().setContextClassLoader(prevClassLoader);
+        }
+    }
+
+    /**
+     * 本次 reactor 中会执行插件的模块. 通过命令行直接调用(当前模块未声明插件)时, 所有模块都会执行.
+     */
+    private Set<String> getExpectedProjects() {
+        Set<String> expected = new HashSet<>();
+        List<MavenProject> projects = session.getProjects();
+        for (MavenProject p : projects) {
+            for (Plugin buildPlugin : p.getBuildPlugins()) {
+                if (plugin.getPluginLookupKey().equals(buildPlugin.getKey())) {
+                    expected.add(p.getId());
+                }
+            }
+        }
+        if (!expected.contains(project.getId())) {
+            for (MavenProject p : projects) {
+                expected.add(p.getId());
+            }
+        }
+        return expected;
+    }
+
+    private void generate(GenerationContext context, MemoryAwareScheduler scheduler, MavenProject copyParent, List<String> libs, Set<String> includeArtifactIdsSet) {
         SwaggerDocs swaggerDocs = new SwaggerDocs(getTitle(), getDescription(), getVersion(), getBasePath(), getHost());
         swaggerDocs.setCamel(getCamel());
-        ResolveSwaggerType.DATE_FORMAT = getDateFormat();
-        ResolveSwaggerType.TIME_FORMAT = getTimeFormat();
-        ResolveSwaggerType.DATETIME_FORMAT = getDatetimeFormat();
-        ResolveSwaggerType.RECURSION_ANCESTOR = getRecursionAncestor();
-        Map<String, Swagger> m = swaggerDocs.parse(copyParent.getBasedir().getAbsolutePath(), getBasePackage(), getExcludeBasePackage(), libs, c -> {
+        swaggerDocs.setScanClasses(getScanClasses());
+        swaggerDocs.setClassesDirectories(getClassesDirectories());
+        swaggerDocs.setScheduler(scheduler);
+        swaggerDocs.setContext(context);
+        if (StringUtils.isNotBlank(context.getModelPath())) {
+            // 在转换为紧凑表示之前合并模型, 合并后的结果同时用于输出到子模块
+            swaggerDocs.setPostProcessor(swagger -> mergeModel(context, swagger));
+        }
+        Map<String, CompactSpec> m = swaggerDocs.parseSpecs(copyParent.getBasedir().getAbsolutePath(), getBasePackage(), getExcludeBasePackage(), libs, c -> {
             getLog().info("Parsing " + c);
         });
 
         File output = getOutputDirectory();
         if (!output.exists()) output.mkdirs();
+        OutputDirectory outputDirectory = new OutputDirectory(output, ETAG_MANIFEST)
+                .setPrecompress(getPrecompress())
+                .addTrackedDirectory(SHARD_DIRECTORY);
 
         List<Map<String, String>> urls = new ArrayList<>();
+        Map<String, List<Map<String, String>>> shardUrls = new ConcurrentHashMap<>();
+        boolean shardByTag = getShardByTag();
+        Set<String> formats = getFormats();
+        List<Callable<Void>> writeTasks = new ArrayList<>();
 
 //        if (!includeArtifactIdsSet.isEmpty()) {
 //            Map<String, Swagger> newM = new HashMap<>();
@@ -165,76 +312,235 @@ public class SwaggerMojo extends AbstractMojo {
 //            m = newM;
 //        }
 
-        for (Map.Entry<String, Swagger> entry : m.entrySet()) {
+        for (Map.Entry<String, CompactSpec> entry : m.entrySet()) {
             if (CollUtil.isNotEmpty(includeArtifactIdsSet) && !includeArtifactIdsSet.contains(entry.getKey())) {
                 continue;
             }
             String filename = entry.getKey() + ".json";
-            Swagger swagger = entry.getValue();
-            mergeModel(swagger);
-            write(swagger, new File(output, filename));
+            CompactSpec spec = entry.getValue();
+            writeTasks.add(() -> {
+                write(spec, outputDirectory, filename);
+                writeFormats(spec, outputDirectory, entry.getKey(), formats);
+                if (shardByTag) {
+                    shardUrls.put(entry.getKey(), writeShards(spec, entry.getKey(), outputDirectory));
+                }
+                return null;
+            });
             urls.add(ImmutableMap.of("name", entry.getKey(), "url", "./" + filename));
         }
+        if (!shardByTag) {
+            // 页面与文档的输出、压缩并行执行
+            writeTasks.add(() -> {
+                writeHtml(outputDirectory, urls);
+                return null;
+            });
+        }
+        scheduler.invokeAll(writeTasks);
+        if (shardByTag) {
+            // 页面只列出分片, 选中时才加载
+            List<Map<String, String>> shards = new ArrayList<>();
+            for (Map<String, String> url : urls) {
+                shards.addAll(shardUrls.getOrDefault(url.get("name"), Collections.singletonList(url)));
+            }
+            writeHtml(outputDirectory, shards);
+        }
+        writeTasks.clear();
+
         for (MavenProject collectedProject : copyParent.getCollectedProjects()) {
             if (collectedProject.getName().equals(project.getName())) {
                 continue;
             }
-            File target = new File(collectedProject.getBasedir(), "target/classes/swagger/" + copyParent.getName());
-            target.mkdirs();
-            for (Map.Entry<String, Swagger> entry : m.entrySet()) {
+            OutputDirectory target = new OutputDirectory(new File(collectedProject.getBasedir(), "target/classes/swagger/" + copyParent.getName()), null);
+            for (Map.Entry<String, CompactSpec> entry : new TreeMap<>(m).entrySet()) {
                 String filename = entry.getKey() + ".json";
-                Swagger swagger = entry.getValue();
-                write(swagger, new File(target, filename));
+                CompactSpec spec = entry.getValue();
+                writeTasks.add(() -> {
+                    write(spec, target, filename);
+                    return null;
+                });
+            }
+        }
+        scheduler.invokeAll(writeTasks);
+        writeETags(outputDirectory);
+        try {
+            for (File stale : outputDirectory.deleteStale()) {
+                getLog().info("Deleted stale output: " + stale.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            getLog().warn(e.getMessage());
+        }
+        getLog().info("Output " + outputDirectory.getWritten() + " files changed, " + outputDirectory.getUnchanged() + " unchanged: " + output.getAbsolutePath());
+    }
+
+    /**
+     * 输出最慢的 Controller/接口、累计解析耗时最高的类型、最深/最宽的模型以及解析失败最多的符号.
+     */
+    private void writeCostReport(CostReport costReport) {
+        int size = getCostReportSize();
+        if (size <= 0 || costReport.isEmpty()) {
+            return;
+        }
+        File file = new File(project.getBuild().getDirectory(), COST_REPORT);
+        file.getParentFile().mkdirs();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (String line : costReport.format(size)) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            getLog().info("Cost report: " + file.getAbsolutePath());
+        } catch (IOException e) {
+            getLog().warn(e.getMessage());
+        }
+    }
+
+    /**
+     * 为本次生成的文档生成强 ETag(SHA-256), 供 swagger-springboot-starter 在运行时直接使用.
+     * 同时作为下次构建的 digest 清单, 内容不变的文件不再重写, 不再生成的文件被删除.
+     */
+    private void writeETags(OutputDirectory output) {
+        StringBuilder manifest = new StringBuilder();
+        for (Map.Entry<String, String> entry : output.getOutputs().entrySet()) {
+            if (!entry.getKey().equals(ETAG_MANIFEST)) {
+                manifest.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
             }
         }
-        writeHtml(urls);
+        try {
+            output.write(ETAG_MANIFEST, manifest.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            getLog().error(e);
+        }
     }
 
-    private void writeHtml(List<Map<String, String>> urls) {
+    private void writeHtml(OutputDirectory output, List<Map<String, String>> urls) {
         String html = "";
-        File file = new File(getOutputDirectory(), "swagger-ui.html");
-        try (InputStream in = SwaggerMojo.class.getClassLoader().getResourceAsStream("META-INF/resources/swagger/swagger-ui.html");
-             FileWriter writer = new FileWriter(file)) {
+        try (InputStream in = SwaggerMojo.class.getClassLoader().getResourceAsStream("META-INF/resources/swagger/swagger-ui.html")) {
             if (in != null) {
                 html = IOUtils.toString(in, StandardCharsets.UTF_8);
                 html = String.format(html, "urls: " + new ObjectMapper().writeValueAsString(urls));
-                writer.write(html);
-                getLog().info("Html output path: " + file.getAbsolutePath());
+                output.write("swagger-ui.html", html.getBytes(StandardCharsets.UTF_8));
+                getLog().info("Html output path: " + new File(output.getDirectory(), "swagger-ui.html").getAbsolutePath());
             }
         } catch (IOException e) {
             getLog().error(e);
         }
-        File dist = new File(getOutputDirectory(), "dist.zip");
-        try (InputStream in = SwaggerMojo.class.getClassLoader().getResourceAsStream("META-INF/resources/swagger/dist.zip");
-             OutputStream out = new BufferedOutputStream(new FileOutputStream(dist))) {
+        byte[] dist = null;
+        try (InputStream in = SwaggerMojo.class.getClassLoader().getResourceAsStream("META-INF/resources/swagger/dist.zip")) {
             if (in != null) {
-                IOUtils.copy(in, out);
+                dist = IOUtils.toByteArray(in);
+                output.write("dist.zip", dist);
             }
         } catch (IOException e) {
             getLog().error(e);
         }
-        try {
-            File distDir = new File(getOutputDirectory(), "dist");
-            distDir.mkdirs();
-            ZipUtil.unzip(dist, distDir);
+        if (dist == null) {
+            return;
+        }
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(dist))) {
+            File distDir = new File(output.getDirectory(), "dist").getCanonicalFile();
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                File file = new File(distDir, entry.getName()).getCanonicalFile();
+                if (!file.toPath().startsWith(distDir.toPath())) {
+                    continue;
+                }
+                output.write("dist/" + distDir.toPath().relativize(file.toPath()).toString().replace('\\', '/'), IOUtils.toByteArray(in));
+            }
         } catch (Exception e) {
             getLog().error(e);
         }
 
     }
 
-    private void write(Swagger swagger, File out) {
-        ObjectMapper objectMapper = new ObjectMapper()
-                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        try (FileWriter writer = new FileWriter(out)) {
-            String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(swagger);
-            writer.write(json);
-            getLog().info("Swagger output path: " + out.getAbsolutePath());
+    /**
+     * 按 tag 拆分文档, 输出各分片(shards/模块名/tag.json), 分片列表由 swagger-ui.html 直接列出.
+     * tag 中的特殊字符替换后可能重名, 重名(不区分大小写)的分片依次加上 _2、_3 后缀.
+     *
+     * @return 页面中各分片的名称与地址
+     */
+    private List<Map<String, String>> writeShards(CompactSpec spec, String name, OutputDirectory output) {
+        List<Map<String, String>> urls = new ArrayList<>();
+        Set<String> filenames = new HashSet<>();
+        for (Map.Entry<String, ObjectNode> entry : TagShards.split(spec.toTree()).entrySet()) {
+            String shard = TagShards.fileName(entry.getKey());
+            String filename = SHARD_DIRECTORY + name + "/" + shard + ".json";
+            for (int i = 2; !filenames.add(filename.toLowerCase()); i++) {
+                filename = SHARD_DIRECTORY + name + "/" + shard + "_" + i + ".json";
+            }
+            write(entry.getValue(), output, filename);
+            urls.add(ImmutableMap.of("name", name + " / " + entry.getKey(), "url", "./" + filename));
+        }
+        return urls;
+    }
+
+    private void write(JsonNode tree, OutputDirectory output, String filename) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File out = new File(output.getDirectory(), filename);
+        try (Span ignored = Events.write(out.getAbsolutePath())) {
+            String json = getMinify() ? objectMapper.writeValueAsString(tree)
+                    : objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(tree);
+            write(output, filename, json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            getLog().error(e.getMessage(), e);
+        }
+    }
+
+    private void write(CompactSpec spec, OutputDirectory output, String filename) {
+        File out = new File(output.getDirectory(), filename);
+        try (Span ignored = Events.write(out.getAbsolutePath())) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+                spec.writeTo(writer, getMinify());
+            }
+            write(output, filename, bytes.toByteArray());
         } catch (IOException e) {
             getLog().error(e.getMessage(), e);
         }
     }
 
+    /**
+     * 由同一份文档输出 json 以外的格式: yaml 使用 UTF-8, cbor 为带 self-describe 标签的 RFC 7049 二进制编码.
+     */
+    private void writeFormats(CompactSpec spec, OutputDirectory output, String name, Set<String> formats) {
+        if (formats.contains("yaml")) {
+            String filename = name + ".yaml";
+            try (Span ignored = Events.write(new File(output.getDirectory(), filename).getAbsolutePath())) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (JsonGenerator generator = Yaml.mapper().getFactory().createGenerator(new OutputStreamWriter(bytes, StandardCharsets.UTF_8))) {
+                    spec.writeTo(generator);
+                }
+                write(output, filename, bytes.toByteArray());
+            } catch (IOException e) {
+                getLog().error(e.getMessage(), e);
+            }
+        }
+        if (formats.contains("cbor")) {
+            String filename = name + ".cbor";
+            try (Span ignored = Events.write(new File(output.getDirectory(), filename).getAbsolutePath())) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (JsonGenerator generator = new CBORFactory().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).createGenerator(bytes)) {
+                    spec.writeTo(generator);
+                }
+                write(output, filename, bytes.toByteArray());
+            } catch (IOException e) {
+                getLog().error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 内容与上次构建相同时不重写, 保留文件的修改时间.
+     */
+    private void write(OutputDirectory output, String filename, byte[] content) throws IOException {
+        File out = new File(output.getDirectory(), filename);
+        if (output.write(filename, content)) {
+            getLog().info("Swagger output path: " + out.getAbsolutePath());
+        } else {
+            getLog().info("Swagger unchanged: " + out.getAbsolutePath());
+        }
+    }
+
     public String getTitle() {
         return System.getProperty("title", title);
     }
@@ -295,6 +601,58 @@ public class SwaggerMojo extends AbstractMojo {
         return new File(output);
     }
 
+    public boolean getMinify() {
+        String property = System.getProperty("minify", String.valueOf(minify));
+        return "true".equals(property);
+    }
+
+    public boolean getPrecompress() {
+        String property = System.getProperty("precompress", String.valueOf(precompress));
+        return "true".equals(property);
+    }
+
+    /**
+     * 始终输出 json, 其余格式按配置追加.
+     */
+    public Set<String> getFormats() {
+        Set<String> result = new LinkedHashSet<>();
+        result.add("json");
+        String property = System.getProperty("formats", formats);
+        for (String format : property == null ? new String[0] : property.split(",")) {
+            format = format.trim().toLowerCase();
+            if (format.isEmpty()) {
+                continue;
+            }
+            if (Arrays.asList("json", "yaml", "yml", "cbor").contains(format)) {
+                result.add(format.equals("yml") ? "yaml" : format);
+            } else {
+                getLog().warn("Unsupported output format: " + format);
+            }
+        }
+        return result;
+    }
+
+    public boolean getShardByTag() {
+        String property = System.getProperty("shardByTag", String.valueOf(shardByTag));
+        return "true".equals(property);
+    }
+
+    public boolean getScanClasses() {
+        String property = System.getProperty("scanClasses", String.valueOf(scanClasses));
+        return "true".equals(property);
+    }
+
+    /**
+     * reactor 中各模块的编译输出目录, 模块可能自定义了 build 目录.
+     */
+    private Map<File, File> getClassesDirectories() {
+        Map<File, File> classesDirectories = new HashMap<>();
+        for (MavenProject p : session.getProjects()) {
+            classesDirectories.put(p.getBasedir().getAbsoluteFile(), new File(p.getBuild().getOutputDirectory()));
+        }
+        return classesDirectories;
+    }
+
     public boolean getRecursionAncestor() {
         String property = System.getProperty("recursionAncestor", String.valueOf(recursionAncestor));
         return "true".equals(property);
@@ -312,23 +670,129 @@ public class SwaggerMojo extends AbstractMojo {
         return System.getProperty("basePackage", basePackage);
     }
 
+    public String getModelPath() {
+        return System.getProperty("modelPath", mergeModel);
+    }
+
+    public String getExcludeTypes() {
+        return System.getProperty("excludeTypes", excludeTypes);
+    }
 
-    public void mergeModel(Swagger swagger) {
+    public String getProtobufDescriptorPath() {
+        return System.getProperty("protobufDescriptorPath", protobufDescriptorPath);
+    }
+
+    /**
+     * 相对路径以当前模块目录为基准.
+     */
+    private String resolveProtobufDescriptorPath() {
+        if (StringUtils.isBlank(getProtobufDescriptorPath())) {
+            return "";
+        }
+        List<String> paths = new ArrayList<>();
+        for (String path : getProtobufDescriptorPath().split(",")) {
+            path = path.trim();
+            if (path.isEmpty() || path.startsWith("classpath:") || new File(path).isAbsolute()) {
+                paths.add(path);
+            } else {
+                paths.add(new File(project.getBasedir(), path).getAbsolutePath());
+            }
+        }
+        return String.join(",", paths);
+    }
+
+    public String getParallelism() {
+        return System.getProperty("parallelism", parallelism);
+    }
+
+    public int getMinHeapHeadroom() {
+        String property = System.getProperty("minHeapHeadroom", String.valueOf(minHeapHeadroom));
+        return NumberUtils.toInt(property, 20);
+    }
+
+    public int getCostReportSize() {
+        String property = System.getProperty("costReportSize", String.valueOf(costReportSize));
+        return NumberUtils.toInt(property, 10);
+    }
+
+    public long getSolverFileCacheSize() {
+        String property = System.getProperty("solverFileCacheSize", String.valueOf(solverFileCacheSize));
+        return NumberUtils.toLong(property, 0);
+    }
+
+    public long getSolverTypeCacheSize() {
+        String property = System.getProperty("solverTypeCacheSize", String.valueOf(solverTypeCacheSize));
+        return NumberUtils.toLong(property, 0);
+    }
+
+    public int getMaxResolveDepth() {
+        String property = System.getProperty("maxResolveDepth", String.valueOf(maxResolveDepth));
+        return NumberUtils.toInt(property, 0);
+    }
+
+    public int getMaxEndpointTypes() {
+        String property = System.getProperty("maxEndpointTypes", String.valueOf(maxEndpointTypes));
+        return NumberUtils.toInt(property, 0);
+    }
+
+    public int getMaxTypes() {
+        String property = System.getProperty("maxTypes", String.valueOf(maxTypes));
+        return NumberUtils.toInt(property, 0);
+    }
+
+    public long getUnitTimeout() {
+        String property = System.getProperty("unitTimeout", String.valueOf(unitTimeout));
+        return NumberUtils.toLong(property, 0);
+    }
+
+    public long getTimeout() {
+        String property = System.getProperty("timeout", String.valueOf(timeout));
+        return NumberUtils.toLong(property, 0);
+    }
+
+
+    public void mergeModel(GenerationContext context, Swagger swagger) {
         try {
-            String mergeModels = System.getProperty("modelPath", "");
+            String mergeModels = context.getModelPath();
             if (StringUtils.isBlank(mergeModels)) {
                 return;
             }
             String[] split = mergeModels.split(",");
             for (String modelPath : split) {
                 modelPath = modelPath.trim();
-                if (modelPath.startsWith("classpath:")) {
-                    modelPath = modelPath.replace("classpath:", "");
-                    try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(modelPath)) {
-                        if (in == null) {
-                            continue;
+                try (Span ignored = Events.mergeModel(modelPath)) {
+                    if (modelPath.startsWith("classpath:")) {
+                        modelPath = modelPath.replace("classpath:", "");
+                        try (InputStream in = context.getClassLoader().getResourceAsStream(modelPath)) {
+                            if (in == null) {
+                                continue;
+                            }
+                            String swaggerFile = IOUtils.toString(in, StandardCharsets.UTF_8);
+                            Swagger modelSwagger = new SwaggerParser()
+                                    .parse(swaggerFile);
+                            for (Map.Entry<String, Model> entry : modelSwagger.getDefinitions().entrySet()) {
+                                Model model = swagger.getDefinitions().get(entry.getKey());
+                                if (model != null) {
+                                    boolean isBreak = false;
+                                    if (model.getProperties() != null) {
+                                        for (Map.Entry<String, Property> propertyEntry : model.getProperties().entrySet()) {
+                                            if (StringUtils.isNotBlank(propertyEntry.getValue().getDescription())) {
+                                                isBreak = true;
+                                                break;
+                                            }
+                                        }
+                                    }
+                                    if (!isBreak) {
+                                        swagger.model(entry.getKey(), entry.getValue());
+                                    }
+                                }
+                            }
+                        } catch (IOException e) {
+                            getLog().warn(e.getMessage());
                         }
-                        String swaggerFile = IOUtils.toString(in, StandardCharsets.UTF_8);
+                    }
+                    if (modelPath.startsWith("http://") || modelPath.startsWith("https://")) {
+                        String swaggerFile = HttpUtil.get(modelPath);
                         Swagger modelSwagger = new SwaggerParser()
                                 .parse(swaggerFile);
                         for (Map.Entry<String, Model> entry : modelSwagger.getDefinitions().entrySet()) {
@@ -348,30 +812,6 @@ public class SwaggerMojo extends AbstractMojo {
                                 }
                             }
                         }
-                    } catch (IOException e) {
-                        getLog().warn(e.getMessage());
-                    }
-                }
-                if (modelPath.startsWith("http://") || modelPath.startsWith("https://")) {
-                    String swaggerFile = HttpUtil.get(modelPath);
-                    Swagger modelSwagger = new SwaggerParser()
-                            .parse(swaggerFile);
-                    for (Map.Entry<String, Model> entry : modelSwagger.getDefinitions().entrySet()) {
-                        Model model = swagger.getDefinitions().get(entry.getKey());
-                        if (model != null) {
-                            boolean isBreak = false;
-                            if (model.getProperties() != null) {
-                                for (Map.Entry<String, Property> propertyEntry : model.getProperties().entrySet()) {
-                                    if (StringUtils.isNotBlank(propertyEntry.getValue().getDescription())) {
-                                        isBreak = true;
-                                        break;
-                                    }
-                                }
-                            }
-                            if (!isBreak) {
-                                swagger.model(entry.getKey(), entry.getValue());
-                            }
-                        }
                     }
                 }
             }
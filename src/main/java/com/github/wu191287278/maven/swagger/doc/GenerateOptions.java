@@ -0,0 +1,176 @@
+package com.github.wu191287278.maven.swagger.doc;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.github.wu191287278.maven.swagger.doc.concurrent.MemoryAwareScheduler;
+import io.swagger.models.Swagger;
+
+/**
+ * 单次 {@link SwaggerEngine#generate} 调用的参数, 不影响已解析类型的缓存.
+ *
+ * @author yu.wu
+ */
+public class GenerateOptions {
+
+    private String title = "Api Documentation";
+
+    private String description = "";
+
+    private String version = "1.0.0";
+
+    private String basePath = "/";
+
+    private String host = "localhost";
+
+    private boolean camel = true;
+
+    private String basePackage;
+
+    private String excludeBasePackage;
+
+    private Consumer<String> consumer = s -> {
+
+    };
+
+    private Consumer<Swagger> postProcessor = swagger -> {
+
+    };
+
+    private MemoryAwareScheduler scheduler;
+
+    private boolean scanClasses = false;
+
+    private Map<File, File> classesDirectories = Collections.emptyMap();
+
+    public String getTitle() {
+        return title;
+    }
+
+    public GenerateOptions setTitle(String title) {
+        this.title = title;
+        return this;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public GenerateOptions setDescription(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public GenerateOptions setVersion(String version) {
+        this.version = version;
+        return this;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public GenerateOptions setBasePath(String basePath) {
+        this.basePath = basePath;
+        return this;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public GenerateOptions setHost(String host) {
+        this.host = host;
+        return this;
+    }
+
+    public boolean isCamel() {
+        return camel;
+    }
+
+    public GenerateOptions setCamel(boolean camel) {
+        this.camel = camel;
+        return this;
+    }
+
+    public String getBasePackage() {
+        return basePackage;
+    }
+
+    public GenerateOptions setBasePackage(String basePackage) {
+        this.basePackage = basePackage;
+        return this;
+    }
+
+    public String getExcludeBasePackage() {
+        return excludeBasePackage;
+    }
+
+    public GenerateOptions setExcludeBasePackage(String excludeBasePackage) {
+        this.excludeBasePackage = excludeBasePackage;
+        return this;
+    }
+
+    public Consumer<String> getConsumer() {
+        return consumer;
+    }
+
+    public GenerateOptions setConsumer(Consumer<String> consumer) {
+        this.consumer = consumer;
+        return this;
+    }
+
+    public Consumer<Swagger> getPostProcessor() {
+        return postProcessor;
+    }
+
+    /**
+     * 每个模块访问完成后、转换为紧凑表示之前对文档的修改, 例如合并外部 definitions. 各模块依次调用.
+     */
+    public GenerateOptions setPostProcessor(Consumer<Swagger> postProcessor) {
+        this.postProcessor = postProcessor;
+        return this;
+    }
+
+    /**
+     * 为空时串行执行.
+     */
+    public MemoryAwareScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public GenerateOptions setScheduler(MemoryAwareScheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * 通过编译输出目录中的 class 文件发现 Controller, 只解析 Controller 与未编译的源文件.
+     */
+    public boolean isScanClasses() {
+        return scanClasses;
+    }
+
+    public GenerateOptions setScanClasses(boolean scanClasses) {
+        this.scanClasses = scanClasses;
+        return this;
+    }
+
+    /**
+     * 模块目录 - 编译输出目录, 未配置的模块使用 target/classes.
+     */
+    public Map<File, File> getClassesDirectories() {
+        return classesDirectories;
+    }
+
+    public GenerateOptions setClassesDirectories(Map<File, File> classesDirectories) {
+        this.classesDirectories = classesDirectories;
+        return this;
+    }
+}
@@ -0,0 +1,384 @@
+package com.github.wu191287278.maven.swagger.doc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cn.hutool.http.HttpUtil;
+import com.github.wu191287278.maven.swagger.doc.jfr.Events;
+import com.github.wu191287278.maven.swagger.doc.jfr.Span;
+import com.github.wu191287278.maven.swagger.doc.protobuf.ProtobufDescriptorIndex;
+import com.github.wu191287278.maven.swagger.doc.protobuf.ProtobufModelCache;
+import com.github.wu191287278.maven.swagger.doc.report.CostReport;
+import com.github.wu191287278.maven.swagger.doc.bytecode.ClassHierarchy;
+import com.github.wu191287278.maven.swagger.doc.spec.SpecInterner;
+import com.github.wu191287278.maven.swagger.doc.visitor.ExclusionRules;
+import com.github.wu191287278.maven.swagger.doc.visitor.PropertyPool;
+import com.github.wu191287278.maven.swagger.doc.visitor.ResolutionBudget;
+import com.github.wu191287278.maven.swagger.doc.visitor.ResolvedTypeCache;
+import com.github.wu191287278.maven.swagger.doc.visitor.UnresolvedSymbolCache;
+import io.swagger.models.Model;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 单次生成过程的上下文, 取代原先的静态可变配置, 使多个模块可以在同一 JVM 中并发生成文档.
+ *
+ * @author yu.wu
+ */
+public class GenerationContext {
+
+    private static final Logger log = LoggerFactory.getLogger(GenerationContext.class);
+
+    private String timeFormat = "13:11:43";
+
+    private String dateFormat = "2018-09-10";
+
+    private String datetimeFormat = "2018-09-10T13:11:43Z";
+
+    private boolean recursionAncestor = false;
+
+    private ClassLoader classLoader = GenerationContext.class.getClassLoader();
+
+    private String modelPath = "";
+
+    private Map<String, Model> modelMap;
+
+    private String protobufDescriptorPath = "";
+
+    private boolean protobufDescriptorsLoaded;
+
+    private String excludeTypes = "";
+
+    private ExclusionRules exclusionRules = ExclusionRules.NONE;
+
+    private long unitTimeout = 0;
+
+    private long timeout = 0;
+
+    private long solverFileCacheSize = 0;
+
+    private long solverTypeCacheSize = 0;
+
+    private final ResolvedTypeCache typeCache = new ResolvedTypeCache();
+
+    private final CostReport costReport = new CostReport();
+
+    private final UnresolvedSymbolCache unresolvedSymbols = new UnresolvedSymbolCache();
+
+    private final ProtobufModelCache protobufModels = new ProtobufModelCache();
+
+    private final PropertyPool propertyPool = new PropertyPool();
+
+    private final SpecInterner specInterner = new SpecInterner();
+
+    private final ResolutionBudget resolutionBudget = new ResolutionBudget();
+
+    private final ClassHierarchy classHierarchy = new ClassHierarchy(GenerationContext.class.getClassLoader());
+
+    public String getTimeFormat() {
+        return timeFormat;
+    }
+
+    public GenerationContext setTimeFormat(String timeFormat) {
+        this.timeFormat = timeFormat;
+        return this;
+    }
+
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    public GenerationContext setDateFormat(String dateFormat) {
+        this.dateFormat = dateFormat;
+        return this;
+    }
+
+    public String getDatetimeFormat() {
+        return datetimeFormat;
+    }
+
+    public GenerationContext setDatetimeFormat(String datetimeFormat) {
+        this.datetimeFormat = datetimeFormat;
+        return this;
+    }
+
+    public boolean isRecursionAncestor() {
+        return recursionAncestor;
+    }
+
+    public GenerationContext setRecursionAncestor(boolean recursionAncestor) {
+        this.recursionAncestor = recursionAncestor;
+        return this;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public GenerationContext setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        return this;
+    }
+
+    public String getModelPath() {
+        return modelPath;
+    }
+
+    public GenerationContext setModelPath(String modelPath) {
+        this.modelPath = modelPath;
+        return this;
+    }
+
+    public String getProtobufDescriptorPath() {
+        return protobufDescriptorPath;
+    }
+
+    /**
+     * protoc 生成的 FileDescriptorSet 文件或目录, 逗号分隔, 支持 classpath: 前缀.
+     */
+    public GenerationContext setProtobufDescriptorPath(String protobufDescriptorPath) {
+        this.protobufDescriptorPath = protobufDescriptorPath;
+        return this;
+    }
+
+    public String getExcludeTypes() {
+        return excludeTypes;
+    }
+
+    /**
+     * 不解析的字段与类型, 逗号分隔, 规则见 {@link ExclusionRules}.
+     */
+    public GenerationContext setExcludeTypes(String excludeTypes) {
+        this.excludeTypes = excludeTypes;
+        this.exclusionRules = ExclusionRules.compile(excludeTypes);
+        return this;
+    }
+
+    public ExclusionRules getExclusionRules() {
+        return exclusionRules;
+    }
+
+    /**
+     * 每个源文件的访问时间上限(秒), 超时的源文件被放弃, 0 表示不限制.
+     */
+    public long getUnitTimeout() {
+        return unitTimeout;
+    }
+
+    public GenerationContext setUnitTimeout(long unitTimeout) {
+        this.unitTimeout = unitTimeout;
+        return this;
+    }
+
+    /**
+     * 单次生成的时间上限(秒), 超过后不再解析、访问剩余源文件, 输出已生成的部分, 0 表示不限制.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public GenerationContext setTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * 模型展开的最大嵌套深度, 0 表示不限制.
+     */
+    public int getMaxResolveDepth() {
+        return resolutionBudget.getMaxDepth();
+    }
+
+    public GenerationContext setMaxResolveDepth(int maxResolveDepth) {
+        resolutionBudget.setMaxDepth(maxResolveDepth);
+        return this;
+    }
+
+    /**
+     * 单个接口展开的模型类型数上限, 0 表示不限制.
+     */
+    public int getMaxEndpointTypes() {
+        return resolutionBudget.getMaxEndpointTypes();
+    }
+
+    public GenerationContext setMaxEndpointTypes(int maxEndpointTypes) {
+        resolutionBudget.setMaxEndpointTypes(maxEndpointTypes);
+        return this;
+    }
+
+    /**
+     * 单个模块展开的模型类型总数上限, 0 表示不限制.
+     */
+    public int getMaxTypes() {
+        return resolutionBudget.getMaxTypes();
+    }
+
+    public GenerationContext setMaxTypes(int maxTypes) {
+        resolutionBudget.setMaxTypes(maxTypes);
+        return this;
+    }
+
+    public ResolutionBudget getResolutionBudget() {
+        return resolutionBudget;
+    }
+
+    /**
+     * 每个源码目录 symbol solver 缓存的已解析文件数上限, 0 表示不限制.
+     */
+    public long getSolverFileCacheSize() {
+        return solverFileCacheSize;
+    }
+
+    public GenerationContext setSolverFileCacheSize(long solverFileCacheSize) {
+        this.solverFileCacheSize = solverFileCacheSize;
+        return this;
+    }
+
+    /**
+     * 每个源码目录 symbol solver 缓存的类型数上限, 0 表示不限制.
+     */
+    public long getSolverTypeCacheSize() {
+        return solverTypeCacheSize;
+    }
+
+    public GenerationContext setSolverTypeCacheSize(long solverTypeCacheSize) {
+        this.solverTypeCacheSize = solverTypeCacheSize;
+        return this;
+    }
+
+    /**
+     * 已解析类型缓存, 与上下文同生命周期, 长期存活的 {@link SwaggerEngine} 借此在多次生成之间复用解析结果.
+     */
+    public ResolvedTypeCache getTypeCache() {
+        return typeCache;
+    }
+
+    /**
+     * 无法解析的符号, 与已解析类型缓存一样在源文件或 jar 变化后由 {@link SwaggerEngine} 清空.
+     */
+    public UnresolvedSymbolCache getUnresolvedSymbols() {
+        return unresolvedSymbols;
+    }
+
+    /**
+     * protobuf 消息模型, 按 descriptor 全名缓存, 在整个生成过程中共享. 首次访问时读取 protobufDescriptorPath.
+     */
+    public synchronized ProtobufModelCache getProtobufModels() {
+        if (!protobufDescriptorsLoaded) {
+            protobufDescriptorsLoaded = true;
+            loadProtobufDescriptors();
+        }
+        return protobufModels;
+    }
+
+    private void loadProtobufDescriptors() {
+        if (StringUtils.isBlank(protobufDescriptorPath)) {
+            return;
+        }
+        ProtobufDescriptorIndex index = protobufModels.getDescriptorIndex();
+        for (String path : protobufDescriptorPath.split(",")) {
+            path = path.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            if (!path.startsWith("classpath:")) {
+                index.load(new File(path));
+                continue;
+            }
+            try {
+                Enumeration<URL> resources = classLoader.getResources(path.replace("classpath:", ""));
+                while (resources.hasMoreElements()) {
+                    URL url = resources.nextElement();
+                    try (InputStream in = url.openStream()) {
+                        index.load(in);
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Failed to read descriptor set " + url + ": " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read descriptor set " + path + ": " + e.getMessage());
+            }
+        }
+        log.info("Indexed " + index.size() + " protobuf messages from " + protobufDescriptorPath);
+    }
+
+    /**
+     * 基础类型属性的共享实例, 与已解析类型缓存同生命周期.
+     */
+    public PropertyPool getPropertyPool() {
+        return propertyPool;
+    }
+
+    /**
+     * 插件自身 classloader(解析器中 Class.forName 使用的 classloader)的继承关系索引, 与上下文同生命周期.
+     */
+    public ClassHierarchy getClassHierarchy() {
+        return classHierarchy;
+    }
+
+    /**
+     * 模块文档紧凑表示的驻留表, 同一上下文生成的文档共享相同的 definition.
+     */
+    public SpecInterner getSpecInterner() {
+        return specInterner;
+    }
+
+    /**
+     * 接口与类型的耗时归集, 与上下文同生命周期.
+     */
+    public CostReport getCostReport() {
+        return costReport;
+    }
+
+    /**
+     * 外部 swagger 文件(modelPath)中的 definitions, 首次访问时加载.
+     */
+    public synchronized Map<String, Model> getModelMap() {
+        if (modelMap != null) {
+            return modelMap;
+        }
+        Map<String, Model> models = new LinkedHashMap<>();
+        try {
+            if (StringUtils.isNotBlank(modelPath)) {
+                for (String path : modelPath.split(",")) {
+                    path = path.trim();
+                    try (Span ignored = Events.mergeModel(path)) {
+                        if (path.startsWith("classpath:")) {
+                            path = path.replace("classpath:", "");
+                            try (InputStream in = classLoader.getResourceAsStream(path)) {
+                                if (in == null) {
+                                    continue;
+                                }
+                                String swaggerFile = IOUtils.toString(in, StandardCharsets.UTF_8);
+                                Swagger modelSwagger = new SwaggerParser()
+                                        .parse(swaggerFile);
+                                models.putAll(modelSwagger.getDefinitions());
+                            } catch (IOException e) {
+                            }
+                        }
+                        if (path.startsWith("http://") || path.startsWith("https://")) {
+                            String swaggerFile = HttpUtil.get(path);
+                            Swagger modelSwagger = new SwaggerParser()
+                                    .parse(swaggerFile);
+                            models.putAll(modelSwagger.getDefinitions());
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+        }
+        modelMap = Collections.unmodifiableMap(models);
+        return modelMap;
+    }
+}
@@ -3,37 +3,19 @@ package com.github.wu191287278.maven.swagger.doc;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import cn.hutool.http.HttpUtil;
 import cn.hutool.json.JSONUtil;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.javaparser.ParseResult;
-import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.PackageDeclaration;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
-import com.github.javaparser.utils.SourceRoot;
-import com.github.wu191287278.maven.swagger.doc.visitor.JavaxRsVisitorAdapter;
-import com.github.wu191287278.maven.swagger.doc.visitor.ResolveSwaggerType;
-import com.github.wu191287278.maven.swagger.doc.visitor.RestVisitorAdapter;
+import com.github.wu191287278.maven.swagger.doc.concurrent.MemoryAwareScheduler;
+import com.github.wu191287278.maven.swagger.doc.jfr.Events;
+import com.github.wu191287278.maven.swagger.doc.jfr.Span;
+import com.github.wu191287278.maven.swagger.doc.spec.CompactSpec;
 import io.swagger.models.*;
-import io.swagger.models.auth.ApiKeyAuthDefinition;
-import io.swagger.models.auth.In;
-import io.swagger.parser.SwaggerParser;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +41,18 @@ public class SwaggerDocs {
 
     private Boolean camel = true;
 
+    private boolean scanClasses = false;
+
+    private Map<File, File> classesDirectories = Collections.emptyMap();
+
+    private MemoryAwareScheduler scheduler = MemoryAwareScheduler.sequential();
+
+    private GenerationContext context = new GenerationContext();
+
+    private Consumer<Swagger> postProcessor = swagger -> {
+
+    };
+
     public SwaggerDocs() {
     }
 
@@ -91,7 +85,8 @@ public class SwaggerDocs {
             file.getParentFile().mkdirs();
         }
 
-        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+        try (Span ignored = Events.write(file.getAbsolutePath());
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
             String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(swagger);
             out.write(json);
             out.flush();
@@ -101,128 +96,38 @@ public class SwaggerDocs {
     }
 
     public Map<String, Swagger> parse(String sourceDirectory, String basePackage, String excludeBasePackage, List<String> libraries, Consumer<String> consumer) {
-        log.info("Parsing " + sourceDirectory);
-        List<File> filteredDirectories = getSourceDirectories(sourceDirectory);
-        List<File> sourceDirectories = getSourceDirectories(sourceDirectory);
-        Map<String, Swagger> swaggerMap = new TreeMap<>();
-        for (File filteredDirectory : filteredDirectories) {
-            String projectPath = filteredDirectory.getAbsolutePath().replace("src/main/java", "")
-                    .replace("src\\main\\java", "");
-            CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-            for (File sourceFile : sourceDirectories) {
-                typeSolver.add(new JavaParserTypeSolver(sourceFile));
-            }
-
-            try {
-                typeSolver.add(new ReflectionTypeSolver(false));
-                JarTypeSolver jarTypeSolver = null;
-                for (String library : libraries) {
-                    jarTypeSolver = JarTypeSolver.getJarTypeSolver(library);
-                }
-                if (jarTypeSolver != null) {
-                    typeSolver.add(jarTypeSolver);
-                }
-            } catch (Exception e) {
-                log.warn(e.getMessage());
-            }
-
-            final RestVisitorAdapter restVisitorAdapter = new RestVisitorAdapter(consumer)
-                    .setCamel(camel)
-                    .setBasePackage(basePackage);
-            final JavaxRsVisitorAdapter javaxRsVisitorAdapter = new JavaxRsVisitorAdapter();
-            Info info = new Info()
-                    .title(this.title)
-                    .description(this.description)
-                    .version(this.version);
-            final Swagger swagger = new Swagger()
-                    .info(info)
-                    .paths(new TreeMap<>())
-                    .schemes(Arrays.asList(Scheme.HTTP, Scheme.HTTPS))
-                    .host(this.host)
-                    .basePath(this.basePath)
-                    .securityDefinition("api_key", new ApiKeyAuthDefinition("Authorization", In.HEADER));
-
-
-            ParserConfiguration parserConfiguration = new ParserConfiguration();
-            parserConfiguration.setSymbolResolver(new JavaSymbolSolver(typeSolver));
-
-            SourceRoot sourceRoot = new SourceRoot(Paths.get(filteredDirectory.getAbsolutePath()), parserConfiguration);
-            List<ParseResult<CompilationUnit>> parseResults = sourceRoot.tryToParseParallelized();
-            for (ParseResult<CompilationUnit> parseResult : parseResults) {
-                if (!parseResult.isSuccessful()) {
-                    continue;
-                }
-                Optional<CompilationUnit> result = parseResult.getResult();
-                if (!result.isPresent()) {
-                    continue;
-                }
-                try {
-                    CompilationUnit r = result.get();
-                    if (excludeBasePackage != null && !excludeBasePackage.isEmpty()) {
-                        Optional<PackageDeclaration> packageDeclarationOptional = r.getPackageDeclaration();
-                        if (packageDeclarationOptional.isPresent()) {
-                            String packageName = packageDeclarationOptional.get().getNameAsString();
-                            if (packageName != null && packageName.startsWith(excludeBasePackage)) {
-                                continue;
-                            }
-                        }
-                    }
-
-                    r.accept(javaxRsVisitorAdapter, swagger);
-                    r.accept(restVisitorAdapter, swagger);
-                } catch (Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            }
-
-            for (Map.Entry<String, Model> entry : javaxRsVisitorAdapter.getModelMap().entrySet()) {
-                swagger.model(entry.getKey(), entry.getValue());
-            }
-            Map<String, Model> modelMap = restVisitorAdapter.getModelMap();
-            restVisitorAdapter.dependencyVisit((name, dependency) -> {
-                Model dependModel = modelMap.get(dependency);
-                Model cur = modelMap.get(name);
-                if(dependModel == null || cur == null || dependModel.getProperties() == null || cur.getProperties() == null) return;
-
-                log.info("属性合并：" + name + " ====> " + dependency);
-                cur.getProperties().putAll(dependModel.getProperties());
-            });
-            for (Map.Entry<String, Model> entry : modelMap.entrySet()) {
-                swagger.model(entry.getKey(), entry.getValue());
-            }
-
-            Set<String> includeTags = new HashSet<>();
-            if (swagger.getPaths() != null && !swagger.getPaths().isEmpty()) {
-                String projectName = new File(projectPath).getName();
-                swagger.getInfo().title(title);
-                swagger.host(host);
-                swagger.basePath(basePath);
-                System.out.println(projectName);
-                swaggerMap.put(projectName, swagger);
-                for (Path path : swagger.getPaths().values()) {
-                    for (Operation operation : path.getOperations()) {
-                        if (operation.getTags() != null) {
-                            includeTags.addAll(operation.getTags());
-                        }
-                        Map<String, List<String>> security = Stream.of("api_key")
-                                .collect(Collectors.toMap(s -> s, s -> new ArrayList<>()));
-                        operation.setSecurity(Collections.singletonList(security));
-                    }
-                }
-            }
+        GenerateOptions options = createOptions(sourceDirectory, basePackage, excludeBasePackage, consumer);
+        try (SwaggerEngine engine = new SwaggerEngine(context, libraries)) {
+            return engine.generate(getSourceDirectories(sourceDirectory), options);
+        }
+    }
 
-            if (swagger.getTags() != null) {
-                Map<String, Tag> m = new TreeMap<>();
-                for (Tag tag : swagger.getTags()) {
-                    if (includeTags.contains(tag.getName())) {
-                        m.put(tag.getName(), tag);
-                    }
-                }
-                swagger.tags(new ArrayList<>(m.values()));
-            }
+    /**
+     * 与 {@link #parse} 相同, 返回各模块文档的紧凑表示, 输出时再转换.
+     */
+    public Map<String, CompactSpec> parseSpecs(String sourceDirectory, String basePackage, String excludeBasePackage, List<String> libraries, Consumer<String> consumer) {
+        GenerateOptions options = createOptions(sourceDirectory, basePackage, excludeBasePackage, consumer);
+        try (SwaggerEngine engine = new SwaggerEngine(context, libraries)) {
+            return engine.generateSpecs(getSourceDirectories(sourceDirectory), options);
         }
+    }
 
-        return swaggerMap;
+    private GenerateOptions createOptions(String sourceDirectory, String basePackage, String excludeBasePackage, Consumer<String> consumer) {
+        log.info("Parsing " + sourceDirectory);
+        return new GenerateOptions()
+                .setTitle(title)
+                .setDescription(description)
+                .setVersion(version)
+                .setBasePath(basePath)
+                .setHost(host)
+                .setCamel(camel)
+                .setScanClasses(scanClasses)
+                .setClassesDirectories(classesDirectories)
+                .setBasePackage(basePackage)
+                .setExcludeBasePackage(excludeBasePackage)
+                .setConsumer(consumer)
+                .setPostProcessor(postProcessor)
+                .setScheduler(scheduler);
     }
 
     private List<File> getSourceDirectories(String sourceDirectory) {
@@ -266,43 +171,26 @@ public class SwaggerDocs {
         this.camel = camel;
     }
 
-    private static final Map<String, Model> MODEL_MAP = new ConcurrentHashMap<>();
+    public void setScanClasses(boolean scanClasses) {
+        this.scanClasses = scanClasses;
+    }
 
-    public static Map<String, Model> getModelMap() {
-        try {
-            String mergeModels = System.getProperty("modelPath", "");
-            if (StringUtils.isBlank(mergeModels) || !MODEL_MAP.isEmpty()) {
-                return MODEL_MAP;
-            }
-            String[] split = mergeModels.split(",");
-            for (String modelPath : split) {
-                modelPath = modelPath.trim();
-                if (modelPath.startsWith("classpath:")) {
-                    modelPath = modelPath.replace("classpath:", "");
-                    try (InputStream in = CLASSLOADER.getResourceAsStream(modelPath)) {
-                        if (in == null) {
-                            continue;
-                        }
-                        String swaggerFile = IOUtils.toString(in, StandardCharsets.UTF_8);
-                        Swagger modelSwagger = new SwaggerParser()
-                                .parse(swaggerFile);
-                        MODEL_MAP.putAll(modelSwagger.getDefinitions());
-                    } catch (IOException e) {
-                    }
-                }
-                if (modelPath.startsWith("http://") || modelPath.startsWith("https://")) {
-                    String swaggerFile = HttpUtil.get(modelPath);
-                    Swagger modelSwagger = new SwaggerParser()
-                            .parse(swaggerFile);
-                    MODEL_MAP.putAll(modelSwagger.getDefinitions());
-                }
-            }
-        } catch (Exception e) {
-        }
-        return MODEL_MAP;
+    public void setClassesDirectories(Map<File, File> classesDirectories) {
+        this.classesDirectories = classesDirectories;
+    }
+
+    public void setScheduler(MemoryAwareScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public void setContext(GenerationContext context) {
+        this.context = context;
+    }
+
+    public void setPostProcessor(Consumer<Swagger> postProcessor) {
+        this.postProcessor = postProcessor;
     }
 
-    public static ClassLoader CLASSLOADER = SwaggerDocs.class.getClassLoader();
 }
 
 
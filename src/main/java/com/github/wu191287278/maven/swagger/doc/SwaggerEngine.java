@@ -0,0 +1,709 @@
+package com.github.wu191287278.maven.swagger.doc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.github.wu191287278.maven.swagger.doc.bytecode.ControllerScanner;
+import com.github.wu191287278.maven.swagger.doc.concurrent.MemoryAwareScheduler;
+import com.github.wu191287278.maven.swagger.doc.concurrent.Watchdog;
+import com.github.wu191287278.maven.swagger.doc.jfr.Events;
+import com.github.wu191287278.maven.swagger.doc.jfr.Span;
+import com.github.wu191287278.maven.swagger.doc.solver.BoundedJavaParserTypeSolver;
+import com.github.wu191287278.maven.swagger.doc.solver.SolverCacheStatistics;
+import com.github.wu191287278.maven.swagger.doc.spec.CompactSpec;
+import com.github.wu191287278.maven.swagger.doc.visitor.JavaxRsVisitorAdapter;
+import com.github.wu191287278.maven.swagger.doc.visitor.ResolutionBudget;
+import com.github.wu191287278.maven.swagger.doc.visitor.RestVisitorAdapter;
+import io.swagger.models.*;
+import io.swagger.models.auth.ApiKeyAuthDefinition;
+import io.swagger.models.auth.In;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 可长期存活的文档生成引擎. 每个 classpath 创建一次, 多次调用 {@link #generateSpecs} 时复用 symbol solver、
+ * 已解析的源文件以及已解析类型的缓存; 源文件或 jar 变化后调用 {@link #invalidate} 使相关缓存失效.
+ * <p>
+ * 源文件的修改时间变化会被自动检测. jar 失效只刷新 symbol solver, {@link GenerationContext#getClassLoader()} 不会重建.
+ *
+ * @author yu.wu
+ */
+public class SwaggerEngine implements AutoCloseable {
+
+    private final Logger log = LoggerFactory.getLogger(SwaggerEngine.class);
+
+    /**
+     * 源文件超时后等待其主动放弃的时间
+     */
+    private static final long ABANDON_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final GenerationContext context;
+
+    private final ReflectionTypeSolver reflectionTypeSolver = new ReflectionTypeSolver(false);
+
+    private final Map<String, JarTypeSolver> jarTypeSolvers = new LinkedHashMap<>();
+
+    private final Map<File, BoundedJavaParserTypeSolver> sourceTypeSolvers = new LinkedHashMap<>();
+
+    private final List<SolverCacheStatistics> retiredStatistics;
+
+    private final Map<java.nio.file.Path, ParsedUnit> units = new ConcurrentHashMap<>();
+
+    private final Map<java.nio.file.Path, Long> lastModified = new HashMap<>();
+
+    private List<File> typeSolverRoots = Collections.emptyList();
+
+    private ParserConfiguration parserConfiguration;
+
+    /**
+     * 设置了超时时访问源文件的线程
+     */
+    private volatile ExecutorService unitExecutor;
+
+    public SwaggerEngine(GenerationContext context, List<String> libraries) {
+        this.context = context;
+        this.retiredStatistics = newStatistics();
+        for (String library : libraries) {
+            addLibrary(new File(library).getAbsolutePath());
+        }
+    }
+
+    public GenerationContext getContext() {
+        return context;
+    }
+
+    /**
+     * 解析全部源码目录并按模块生成文档, 每个源码目录既参与类型解析, 也作为一个模块输出.
+     *
+     * @return 模块名 - swagger
+     */
+    public Map<String, Swagger> generate(List<File> sourceRoots, GenerateOptions options) {
+        return generate(sourceRoots, options, swagger -> swagger);
+    }
+
+    /**
+     * 与 {@link #generate} 相同, 但每个模块访问完成后立即转换为紧凑表示, 不再保留 Swagger 对象.
+     *
+     * @return 模块名 - 文档
+     */
+    public Map<String, CompactSpec> generateSpecs(List<File> sourceRoots, GenerateOptions options) {
+        return generate(sourceRoots, options, swagger -> CompactSpec.of(swagger, context.getSpecInterner()));
+    }
+
+    /**
+     * @param convert 每个模块访问完成并经 {@link GenerateOptions#getPostProcessor()} 处理后的转换
+     */
+    private synchronized <T> Map<String, T> generate(List<File> sourceRoots, GenerateOptions options, Function<Swagger, T> convert) {
+        MemoryAwareScheduler scheduler = options.getScheduler() != null ? options.getScheduler() : MemoryAwareScheduler.sequential();
+        long deadline = Watchdog.deadline(TimeUnit.SECONDS.toMillis(context.getTimeout()));
+        Watchdog generation = new Watchdog(0, deadline);
+        List<File> roots = new ArrayList<>();
+        for (File sourceRoot : sourceRoots) {
+            roots.add(sourceRoot.getAbsoluteFile());
+        }
+
+        Map<File, List<java.nio.file.Path>> rootFiles = new LinkedHashMap<>();
+        Set<java.nio.file.Path> present = new HashSet<>();
+        List<File> changed = new ArrayList<>();
+        for (File root : roots) {
+            List<java.nio.file.Path> files = listJavaFiles(root);
+            for (java.nio.file.Path file : files) {
+                present.add(file);
+                long modified = file.toFile().lastModified();
+                Long previous = lastModified.put(file, modified);
+                if (previous != null && previous != modified) {
+                    changed.add(file.toFile());
+                }
+            }
+            File classesDirectory = getClassesDirectory(root, options);
+            if (options.isScanClasses() && classesDirectory != null && classesDirectory.isDirectory()) {
+                files = new ArrayList<>(ControllerScanner.scan(classesDirectory.toPath(), root.toPath().toAbsolutePath().normalize(), files));
+            }
+            rootFiles.put(root, files);
+        }
+        for (java.nio.file.Path file : new ArrayList<>(lastModified.keySet())) {
+            if (!present.contains(file)) {
+                lastModified.remove(file);
+                changed.add(file.toFile());
+            }
+        }
+        if (!changed.isEmpty()) {
+            invalidate(changed);
+        }
+        ParserConfiguration parserConfiguration = getParserConfiguration(roots);
+        context.getResolutionBudget().reset();
+
+        List<ModuleSource> modules = new ArrayList<>();
+        List<ModuleSource> parseModules = new ArrayList<>();
+        List<java.nio.file.Path> parseFiles = new ArrayList<>();
+        List<Callable<ParsedUnit>> parseTasks = new ArrayList<>();
+        for (Map.Entry<File, List<java.nio.file.Path>> entry : rootFiles.entrySet()) {
+            ModuleSource module = new ModuleSource(entry.getKey());
+            modules.add(module);
+            for (java.nio.file.Path file : entry.getValue()) {
+                ParsedUnit cached = units.get(file);
+                if (cached != null) {
+                    cached.compilationUnit.ifPresent(cu -> cu.setData(Node.SYMBOL_RESOLVER_KEY, parserConfiguration.getSymbolResolver().get()));
+                    module.units.add(cached);
+                    continue;
+                }
+                parseModules.add(module);
+                parseFiles.add(file);
+                parseTasks.add(() -> {
+                    if (generation.isDeadlineExceeded()) {
+                        return null;
+                    }
+                    ParseResult<CompilationUnit> parseResult;
+                    try (Span ignored = Events.parse(file.toString())) {
+                        parseResult = new JavaParser(parserConfiguration)
+                                .parse(ParseStart.COMPILATION_UNIT, Providers.provider(file));
+                    }
+                    Optional<CompilationUnit> compilationUnit = parseResult.isSuccessful() ? parseResult.getResult() : Optional.empty();
+                    compilationUnit.ifPresent(cu -> cu.setStorage(file));
+                    return new ParsedUnit(file, compilationUnit);
+                });
+            }
+        }
+        // 截止时间之后仍未完成的解析被放弃, 结果只在这里发布, 被放弃的任务不会再修改模块
+        List<ParsedUnit> parsed = scheduler.invokeAll(parseTasks, deadline);
+        for (int i = 0; i < parsed.size(); i++) {
+            ParsedUnit unit = parsed.get(i);
+            if (unit == null) {
+                parseModules.get(i).partial = true;
+                context.getCostReport().recordAbandoned(parseFiles.get(i).toString(), "timeout=" + context.getTimeout() + "s", 0);
+                continue;
+            }
+            units.put(unit.path, unit);
+            parseModules.get(i).units.add(unit);
+        }
+
+        if (unitExecutor == null && (context.getUnitTimeout() > 0 || context.getTimeout() > 0)) {
+            unitExecutor = newUnitExecutor();
+        }
+        // JavaParserFacade 把解析结果缓存在 Node.data(非线程安全的 IdentityHashMap)中, 各模块共享 solver 缓存的编译单元,
+        // 因此模块依次访问, 只有解析与输出并行执行
+        List<T> specs = new ArrayList<>();
+        for (ModuleSource module : modules) {
+            Swagger swagger = visit(module, options, new Watchdog(TimeUnit.SECONDS.toMillis(context.getUnitTimeout()), deadline),
+                    abandoned -> isolate(abandoned, roots, modules));
+            if (swagger.getPaths() == null || swagger.getPaths().isEmpty()) {
+                specs.add(null);
+                continue;
+            }
+            options.getPostProcessor().accept(swagger);
+            specs.add(convert.apply(swagger));
+        }
+        context.getPropertyPool().checkUnmodified();
+
+        Map<String, T> specMap = new TreeMap<>();
+        for (int i = 0; i < modules.size(); i++) {
+            T spec = specs.get(i);
+            if (spec != null) {
+                String projectName = new File(modules.get(i).projectPath).getName();
+                log.debug("Generated " + projectName);
+                specMap.put(projectName, spec);
+            }
+        }
+        log.info("Symbol solver caches " + getSolverCacheStatistics());
+        if (context.getUnresolvedSymbols().size() > 0) {
+            log.info(context.getUnresolvedSymbols().size() + " unresolved symbols, see the resolution failures of the cost report");
+        }
+        if (generation.isDeadlineExceeded()) {
+            log.warn("Generation exceeded the timeout of " + context.getTimeout() + "s, the documents are partial, see the abandoned compilation units of the cost report");
+        }
+        if (context.getResolutionBudget().getTruncated() > 0) {
+            log.warn(context.getResolutionBudget().getTruncated() + " model expansions truncated by resolution budgets, see the truncated types of the cost report");
+        }
+        return specMap;
+    }
+
+    /**
+     * 源码目录所在模块的编译输出目录.
+     *
+     * @return 不是 maven 目录结构时返回 null
+     */
+    private static File getClassesDirectory(File sourceRoot, GenerateOptions options) {
+        String path = sourceRoot.getAbsolutePath();
+        for (String sourceDirectory : Arrays.asList("src/main/java", "target/generated-sources/annotations")) {
+            String suffix = File.separator + sourceDirectory.replace('/', File.separatorChar);
+            if (path.endsWith(suffix) || path.endsWith(suffix + File.separator)) {
+                File module = new File(path.substring(0, path.lastIndexOf(suffix)));
+                File classesDirectory = options.getClassesDirectories().get(module);
+                return classesDirectory != null ? classesDirectory : new File(module, "target/classes");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 全部源码目录 solver 缓存的统计(包括已失效的 solver), 依次为 files、directories、types.
+     */
+    public synchronized List<SolverCacheStatistics> getSolverCacheStatistics() {
+        List<SolverCacheStatistics> statistics = newStatistics();
+        List<List<SolverCacheStatistics>> sources = new ArrayList<>();
+        sources.add(retiredStatistics);
+        for (BoundedJavaParserTypeSolver solver : sourceTypeSolvers.values()) {
+            sources.add(solver.getStatistics());
+        }
+        for (List<SolverCacheStatistics> source : sources) {
+            for (int i = 0; i < statistics.size(); i++) {
+                statistics.get(i).add(source.get(i));
+            }
+        }
+        return statistics;
+    }
+
+    public void invalidate(File... files) {
+        invalidate(Arrays.asList(files));
+    }
+
+    /**
+     * 使变化的源文件或 jar 相关的缓存失效. 已解析类型之间的依赖无法精确追踪, 因此类型缓存会整体清空,
+     * 未变化的源文件与 jar 的解析结果仍然保留.
+     */
+    public synchronized void invalidate(Collection<File> files) {
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            if (jarTypeSolvers.containsKey(path)) {
+                jarTypeSolvers.remove(path);
+                if (file.exists()) {
+                    addLibrary(path);
+                }
+                log.info("Invalidated " + path);
+                continue;
+            }
+            units.remove(file.toPath().toAbsolutePath().normalize());
+            for (File root : new ArrayList<>(sourceTypeSolvers.keySet())) {
+                if (path.startsWith(root.getAbsolutePath())) {
+                    retire(sourceTypeSolvers.put(root, newSourceTypeSolver(root)));
+                }
+            }
+            log.info("Invalidated " + path);
+        }
+        parserConfiguration = null;
+        context.getTypeCache().clear();
+        context.getUnresolvedSymbols().clear();
+    }
+
+    public synchronized void invalidateAll() {
+        units.clear();
+        lastModified.clear();
+        sourceTypeSolvers.replaceAll((root, solver) -> {
+            retire(solver);
+            return newSourceTypeSolver(root);
+        });
+        for (String path : new ArrayList<>(jarTypeSolvers.keySet())) {
+            jarTypeSolvers.remove(path);
+            addLibrary(path);
+        }
+        parserConfiguration = null;
+        context.getTypeCache().clear();
+        context.getUnresolvedSymbols().clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (unitExecutor != null) {
+            unitExecutor.shutdownNow();
+            unitExecutor = null;
+        }
+        units.clear();
+        lastModified.clear();
+        sourceTypeSolvers.clear();
+        jarTypeSolvers.clear();
+        parserConfiguration = null;
+        context.getTypeCache().clear();
+        context.getUnresolvedSymbols().clear();
+    }
+
+    private BoundedJavaParserTypeSolver newSourceTypeSolver(File root) {
+        return new BoundedJavaParserTypeSolver(root, context.getSolverFileCacheSize(), context.getSolverTypeCacheSize());
+    }
+
+    private void retire(BoundedJavaParserTypeSolver solver) {
+        if (solver == null) {
+            return;
+        }
+        List<SolverCacheStatistics> statistics = solver.getStatistics();
+        for (int i = 0; i < statistics.size(); i++) {
+            retiredStatistics.get(i).add(statistics.get(i));
+        }
+    }
+
+    private List<SolverCacheStatistics> newStatistics() {
+        return Arrays.asList(new SolverCacheStatistics("files", context.getSolverFileCacheSize()),
+                new SolverCacheStatistics("directories", context.getSolverFileCacheSize()),
+                new SolverCacheStatistics("types", context.getSolverTypeCacheSize()));
+    }
+
+    private void addLibrary(String path) {
+        try {
+            jarTypeSolvers.put(path, new JarTypeSolver(path));
+        } catch (Exception e) {
+            log.warn(e.getMessage());
+        }
+    }
+
+    private ParserConfiguration getParserConfiguration(List<File> roots) {
+        if (parserConfiguration != null && typeSolverRoots.equals(roots)) {
+            return parserConfiguration;
+        }
+        List<TypeSolver> solvers = new ArrayList<>();
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+        for (File root : roots) {
+            BoundedJavaParserTypeSolver solver = sourceTypeSolvers.computeIfAbsent(root, this::newSourceTypeSolver);
+            typeSolver.add(solver);
+            solvers.add(solver);
+        }
+        typeSolver.add(reflectionTypeSolver);
+        solvers.add(reflectionTypeSolver);
+        for (JarTypeSolver jarTypeSolver : jarTypeSolvers.values()) {
+            typeSolver.add(jarTypeSolver);
+            solvers.add(jarTypeSolver);
+        }
+        // JavaParserFacade 内部使用非线程安全的 WeakHashMap 缓存实例, 并发访问前先在当前线程注册
+        JavaParserFacade.get(typeSolver);
+        for (TypeSolver solver : solvers) {
+            JavaParserFacade.get(solver);
+        }
+
+        parserConfiguration = new ParserConfiguration();
+        parserConfiguration.setSymbolResolver(new JavaSymbolSolver(typeSolver));
+        typeSolverRoots = roots;
+        return parserConfiguration;
+    }
+
+    /**
+     * 被放弃的源文件仍在原来的线程中解析类型, 之后的源文件改用新建的 symbol solver, 不再与其共享编译单元及其 Node.data.
+     * 被放弃的源文件不再缓存, 下次生成时重新解析.
+     */
+    private void isolate(CompilationUnit abandoned, List<File> roots, List<ModuleSource> modules) {
+        abandoned.getStorage().ifPresent(storage -> units.remove(storage.getPath()));
+        sourceTypeSolvers.replaceAll((root, solver) -> {
+            retire(solver);
+            return newSourceTypeSolver(root);
+        });
+        for (String path : new ArrayList<>(jarTypeSolvers.keySet())) {
+            jarTypeSolvers.remove(path);
+            addLibrary(path);
+        }
+        parserConfiguration = null;
+        ParserConfiguration parserConfiguration = getParserConfiguration(roots);
+        for (ModuleSource module : modules) {
+            for (ParsedUnit unit : module.units) {
+                unit.compilationUnit
+                        .filter(cu -> cu != abandoned)
+                        .ifPresent(cu -> cu.setData(Node.SYMBOL_RESOLVER_KEY, parserConfiguration.getSymbolResolver().get()));
+            }
+        }
+    }
+
+    /**
+     * @param watchdog  每个源文件的时间上限与整次生成的截止时间, 超时的源文件被放弃, 截止时间之后的源文件不再访问
+     * @param onAbandon 源文件超过时限仍未返回时调用
+     */
+    private Swagger visit(ModuleSource module, GenerateOptions options, Watchdog watchdog, Consumer<CompilationUnit> onAbandon) {
+        String excludeBasePackage = options.getExcludeBasePackage();
+        ResolutionBudget budget = context.getResolutionBudget().forModule();
+        ModuleVisitors visitors = new ModuleVisitors(context, options, budget, watchdog);
+        List<ModuleVisitors> retired = new ArrayList<>();
+        Info info = new Info()
+                .title(options.getTitle())
+                .description(options.getDescription())
+                .version(options.getVersion());
+        final Swagger swagger = new Swagger()
+                .info(info)
+                .paths(new TreeMap<>())
+                .schemes(Arrays.asList(Scheme.HTTP, Scheme.HTTPS))
+                .host(options.getHost())
+                .basePath(options.getBasePath())
+                .securityDefinition("api_key", new ApiKeyAuthDefinition("Authorization", In.HEADER));
+
+        boolean partial = module.partial;
+        for (CompilationUnit r : module.sortedCompilationUnits()) {
+            String unit = r.getStorage().map(storage -> storage.getPath().toString()).orElse(null);
+            if (visitors.watchdog.isDeadlineExceeded()) {
+                partial = true;
+                context.getCostReport().recordAbandoned(unit, "timeout=" + context.getTimeout() + "s", 0);
+                continue;
+            }
+            if (excludeBasePackage != null && !excludeBasePackage.isEmpty()) {
+                Optional<PackageDeclaration> packageDeclarationOptional = r.getPackageDeclaration();
+                if (packageDeclarationOptional.isPresent()) {
+                    String packageName = packageDeclarationOptional.get().getNameAsString();
+                    if (packageName != null && packageName.startsWith(excludeBasePackage)) {
+                        continue;
+                    }
+                }
+            }
+            long start = System.nanoTime();
+            visitors.watchdog.startUnit();
+            boolean returned;
+            try (Span ignored = Events.visit(unit)) {
+                returned = visitUnit(r, visitors, swagger);
+            }
+            if (!returned || visitors.watchdog.isExpired()) {
+                partial = true;
+                String limit = visitors.watchdog.isDeadlineExceeded() ? "timeout=" + context.getTimeout() + "s" : "unitTimeout=" + context.getUnitTimeout() + "s";
+                context.getCostReport().recordAbandoned(unit, limit, System.nanoTime() - start);
+                log.warn("Abandoned " + unit + " after exceeding " + limit);
+            }
+            if (!returned) {
+                // 仍在运行的线程继续持有原来的 visitor, 之后的源文件改用新的 visitor
+                visitors.watchdog.abandon();
+                retired.add(visitors);
+                onAbandon.accept(r);
+                visitors = new ModuleVisitors(context, options, budget, visitors.watchdog.renew());
+            }
+        }
+
+        retired.add(visitors);
+        for (ModuleVisitors moduleVisitors : retired) {
+            Map<String, Model> javaxRsModels;
+            Map<String, Model> restModels;
+            if (moduleVisitors.running) {
+                // 被放弃的线程仍在定义与修改模型, 只输出放弃前已访问完的源文件定义的模型
+                partial = true;
+                javaxRsModels = moduleVisitors.javaxRs.getModelMap(moduleVisitors.javaxRsDefined);
+                restModels = moduleVisitors.rest.getModelMap(moduleVisitors.restDefined);
+                log.warn("Dropped the models of an abandoned compilation unit that is still running in " + module.projectPath);
+            } else {
+                javaxRsModels = moduleVisitors.javaxRs.getModelMap();
+                restModels = moduleVisitors.rest.getModelMap();
+            }
+            for (Map.Entry<String, Model> entry : javaxRsModels.entrySet()) {
+                swagger.model(entry.getKey(), entry.getValue());
+            }
+            // 父类属性在解析时已展开到每个子类的 definition 中
+            for (Map.Entry<String, Model> entry : restModels.entrySet()) {
+                swagger.model(entry.getKey(), entry.getValue());
+            }
+        }
+        if (swagger.getDefinitions() != null) {
+            // 已解析类型的缓存为并发 Map, 按名称排序保证输出稳定
+            swagger.setDefinitions(new TreeMap<>(swagger.getDefinitions()));
+        }
+        if (partial) {
+            // 超时放弃了部分源文件, 文档仍然有效但不完整
+            swagger.vendorExtension("x-partial", true);
+        }
+
+        Set<String> includeTags = new HashSet<>();
+        if (swagger.getPaths() != null && !swagger.getPaths().isEmpty()) {
+            swagger.getInfo().title(options.getTitle());
+            swagger.host(options.getHost());
+            swagger.basePath(options.getBasePath());
+            for (Path path : swagger.getPaths().values()) {
+                for (Operation operation : path.getOperations()) {
+                    if (operation.getTags() != null) {
+                        includeTags.addAll(operation.getTags());
+                    }
+                    Map<String, List<String>> security = Stream.of("api_key")
+                            .collect(Collectors.toMap(s -> s, s -> new ArrayList<>()));
+                    operation.setSecurity(Collections.singletonList(security));
+                }
+            }
+        }
+
+        if (swagger.getTags() != null) {
+            Map<String, Tag> m = new TreeMap<>();
+            for (Tag tag : swagger.getTags()) {
+                if (includeTags.contains(tag.getName())) {
+                    m.put(tag.getName(), tag);
+                }
+            }
+            swagger.tags(new ArrayList<>(m.values()));
+        }
+        return swagger;
+    }
+
+    /**
+     * 访问一个源文件. 接口先写入单独的文档, 访问完成后再合并, 被放弃的源文件不会留下写了一半的接口.
+     * 设置了超时时在单独的线程中访问, 超过时限仍未返回时放弃, 不再等待.
+     *
+     * @return 超过时限仍未返回时返回 false
+     */
+    private boolean visitUnit(CompilationUnit r, ModuleVisitors visitors, Swagger swagger) {
+        Swagger unit = new Swagger().paths(new TreeMap<>());
+        Runnable task = () -> {
+            try {
+                r.accept(visitors.javaxRs, unit);
+                r.accept(visitors.rest, unit);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            } finally {
+                visitors.running = false;
+            }
+        };
+        ExecutorService executor = unitExecutor;
+        if (executor == null || !visitors.watchdog.isLimited()) {
+            task.run();
+        } else {
+            visitors.javaxRsDefined = visitors.javaxRs.getDefinedCount();
+            visitors.restDefined = visitors.rest.getDefinedCount();
+            visitors.running = true;
+            Future<?> future = executor.submit(task);
+            long remaining = visitors.watchdog.remainingNanos();
+            try {
+                // 主动放弃需要一点时间返回, 多等待一会儿以保留已访问的接口
+                future.get(remaining > Long.MAX_VALUE - ABANDON_GRACE_NANOS ? Long.MAX_VALUE : remaining + ABANDON_GRACE_NANOS, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                return false;
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+        if (unit.getTags() != null) {
+            for (Tag tag : unit.getTags()) {
+                swagger.addTag(tag);
+            }
+        }
+        for (Map.Entry<String, Path> entry : unit.getPaths().entrySet()) {
+            Path path = swagger.getPaths().get(entry.getKey());
+            if (path == null) {
+                swagger.path(entry.getKey(), entry.getValue());
+                continue;
+            }
+            for (Map.Entry<HttpMethod, Operation> operation : entry.getValue().getOperationMap().entrySet()) {
+                path.set(operation.getKey().name().toLowerCase(), operation.getValue());
+            }
+        }
+        return true;
+    }
+
+    private static ExecutorService newUnitExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "swagger-unit-" + counter.incrementAndGet());
+            // 被放弃的源文件所在的线程不会阻止 JVM 退出
+            thread.setDaemon(true);
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        });
+    }
+
+    private List<java.nio.file.Path> listJavaFiles(File directory) {
+        try (Stream<java.nio.file.Path> stream = Files.walk(directory.toPath())) {
+            return stream.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                    .map(p -> p.toAbsolutePath().normalize())
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn(e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private static class ParsedUnit {
+
+        private final java.nio.file.Path path;
+
+        private final Optional<CompilationUnit> compilationUnit;
+
+        private ParsedUnit(java.nio.file.Path path, Optional<CompilationUnit> compilationUnit) {
+            this.path = path;
+            this.compilationUnit = compilationUnit;
+        }
+    }
+
+    /**
+     * 一个模块的 visitor 与超时检查. 源文件被放弃后仍在运行的线程继续持有原来的实例, 线程结束前其模型不会合并到文档中.
+     */
+    private static class ModuleVisitors {
+
+        private final RestVisitorAdapter rest;
+
+        private final JavaxRsVisitorAdapter javaxRs;
+
+        private final Watchdog watchdog;
+
+        /**
+         * 正在单独的线程中访问源文件, 被放弃后直到线程真正结束前一直为 true
+         */
+        private volatile boolean running;
+
+        /**
+         * 开始访问当前源文件前已定义的模型数
+         */
+        private int javaxRsDefined;
+
+        private int restDefined;
+
+        private ModuleVisitors(GenerationContext context, GenerateOptions options, ResolutionBudget budget, Watchdog watchdog) {
+            this.rest = new RestVisitorAdapter(context, options.getConsumer())
+                    .setCamel(options.isCamel())
+                    .setBasePackage(options.getBasePackage())
+                    .setWatchdog(watchdog)
+                    .setResolutionBudget(budget);
+            this.javaxRs = new JavaxRsVisitorAdapter(context)
+                    .setWatchdog(watchdog)
+                    .setResolutionBudget(budget);
+            this.watchdog = watchdog;
+        }
+    }
+
+    private static class ModuleSource {
+
+        private final String projectPath;
+
+        private final List<ParsedUnit> units = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * 有源文件因截止时间未解析
+         */
+        private volatile boolean partial;
+
+        private ModuleSource(File directory) {
+            this.projectPath = directory.getAbsolutePath().replace("src/main/java", "")
+                    .replace("src\\main\\java", "");
+        }
+
+        /**
+         * 并发解析后结果顺序不确定, 按文件路径排序保证输出稳定.
+         */
+        private List<CompilationUnit> sortedCompilationUnits() {
+            List<ParsedUnit> sorted = new ArrayList<>(units);
+            sorted.sort(Comparator.comparing(unit -> unit.path));
+            List<CompilationUnit> compilationUnits = new ArrayList<>();
+            for (ParsedUnit unit : sorted) {
+                unit.compilationUnit.ifPresent(compilationUnits::add);
+            }
+            return compilationUnits;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.wu191287278.maven.swagger.doc.bytecode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * class 文件中发现接口与判断继承关系所需的最少信息: 类名、父类、接口、源文件名以及类上的注解.
+ * <p>
+ * 只读取常量池、跳过字段与方法, 常量池中的字符串在用到时才解码, 单个文件通常只需几微秒.
+ *
+ * @author yu.wu
+ */
+public class ClassFileSummary {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final String className;
+
+    private final String superClass;
+
+    private final List<String> interfaces;
+
+    private final String sourceFile;
+
+    private final List<String> annotations;
+
+    private ClassFileSummary(String className, String superClass, List<String> interfaces, String sourceFile, List<String> annotations) {
+        this.className = className;
+        this.superClass = superClass;
+        this.interfaces = interfaces;
+        this.sourceFile = sourceFile;
+        this.annotations = annotations;
+    }
+
+    /**
+     * 内部名称, 例如 com/example/UserController$Inner
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * 父类的内部名称, java/lang/Object 与 module-info 为 null
+     */
+    public String getSuperClass() {
+        return superClass;
+    }
+
+    /**
+     * 直接实现(或继承)的接口的内部名称
+     */
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * SourceFile 属性, 编译时使用 -g:none 则为空
+     */
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * 类上的注解(运行期可见与不可见)的内部名称, 例如 org/springframework/web/bind/annotation/RestController
+     */
+    public List<String> getAnnotations() {
+        return annotations;
+    }
+
+    public String getPackageName() {
+        int index = className.lastIndexOf('/');
+        return index < 0 ? "" : className.substring(0, index);
+    }
+
+    /**
+     * @throws IllegalArgumentException 不是合法的 class 文件
+     */
+    public static ClassFileSummary read(byte[] bytes) {
+        try {
+            return new Reader(ByteBuffer.wrap(bytes)).read();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed class file", e);
+        }
+    }
+
+    private static class Reader {
+
+        private final ByteBuffer buffer;
+
+        private int[] offsets;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private ClassFileSummary read() {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            buffer.position(buffer.position() + 4);
+            readConstantPool();
+            buffer.position(buffer.position() + 2);
+            String className = classAt(u2());
+            int superIndex = u2();
+            String superClass = superIndex == 0 ? null : classAt(superIndex);
+            int interfaceCount = u2();
+            List<String> interfaces = interfaceCount == 0 ? Collections.emptyList() : new ArrayList<>(interfaceCount);
+            for (int i = 0; i < interfaceCount; i++) {
+                interfaces.add(classAt(u2()));
+            }
+            skipMembers();
+            skipMembers();
+
+            String sourceFile = null;
+            List<String> annotations = Collections.emptyList();
+            int attributes = u2();
+            for (int i = 0; i < attributes; i++) {
+                String name = utf8At(u2());
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                if ("SourceFile".equals(name)) {
+                    sourceFile = utf8At(u2());
+                } else if ("RuntimeVisibleAnnotations".equals(name) || "RuntimeInvisibleAnnotations".equals(name)) {
+                    if (annotations.isEmpty()) {
+                        annotations = new ArrayList<>();
+                    }
+                    int count = u2();
+                    for (int j = 0; j < count; j++) {
+                        annotations.add(readAnnotation());
+                    }
+                }
+                buffer.position(end);
+            }
+            return new ClassFileSummary(className, superClass, interfaces, sourceFile, annotations);
+        }
+
+        private void readConstantPool() {
+            int count = u2();
+            offsets = new int[count];
+            for (int i = 1; i < count; i++) {
+                offsets[i] = buffer.position();
+                int tag = buffer.get();
+                switch (tag) {
+                    case 1:
+                        int length = u2();
+                        buffer.position(buffer.position() + length);
+                        break;
+                    case 5:
+                    case 6:
+                        buffer.position(buffer.position() + 8);
+                        i++;
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        buffer.position(buffer.position() + 4);
+                        break;
+                    case 15:
+                        buffer.position(buffer.position() + 3);
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        buffer.position(buffer.position() + 2);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+        }
+
+        private void skipMembers() {
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                buffer.position(buffer.position() + 6);
+                int attributes = u2();
+                for (int j = 0; j < attributes; j++) {
+                    buffer.position(buffer.position() + 2);
+                    int length = buffer.getInt();
+                    buffer.position(buffer.position() + length);
+                }
+            }
+        }
+
+        /**
+         * 返回注解类型, 元素值全部跳过.
+         */
+        private String readAnnotation() {
+            String descriptor = utf8At(u2());
+            int pairs = u2();
+            for (int i = 0; i < pairs; i++) {
+                buffer.position(buffer.position() + 2);
+                skipElementValue();
+            }
+            return descriptor.startsWith("L") && descriptor.endsWith(";") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+        }
+
+        private void skipElementValue() {
+            int tag = buffer.get();
+            switch (tag) {
+                case 'e':
+                    buffer.position(buffer.position() + 4);
+                    break;
+                case '@':
+                    readAnnotation();
+                    break;
+                case '[':
+                    int count = u2();
+                    for (int i = 0; i < count; i++) {
+                        skipElementValue();
+                    }
+                    break;
+                default:
+                    buffer.position(buffer.position() + 2);
+            }
+        }
+
+        private String classAt(int index) {
+            int position = buffer.position();
+            buffer.position(offsets[index] + 1);
+            int nameIndex = u2();
+            buffer.position(position);
+            return utf8At(nameIndex);
+        }
+
+        /**
+         * 常量池使用 modified UTF-8, 类名与注解名中不会出现与标准 UTF-8 不同的字符.
+         */
+        private String utf8At(int index) {
+            int offset = offsets[index];
+            int length = ((buffer.get(offset + 1) & 0xFF) << 8) | (buffer.get(offset + 2) & 0xFF);
+            return new String(buffer.array(), offset + 3, length, StandardCharsets.UTF_8);
+        }
+
+        private int u2() {
+            return buffer.getShort() & 0xFFFF;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.wu191287278.maven.swagger.doc.bytecode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * 通过 class 文件中的父类与接口判断继承关系, 不加载类, 因此不会执行静态初始化, 也不会占用 metaspace.
+ * <p>
+ * 与 Class.forName 一致, 类名为二进制名称(嵌套类使用 '$'), 自身或任一父类型的 class 文件不存在时视为无法加载.
+ * 每个类型的全部父类型只计算一次.
+ *
+ * @author yu.wu
+ */
+public class ClassHierarchy {
+
+    private static final Set<String> MISSING = Collections.emptySet();
+
+    private final ClassLoader classLoader;
+
+    private final Map<String, Set<String>> supertypes = new ConcurrentHashMap<>();
+
+    public ClassHierarchy(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * 对应 Class.forName 能否成功
+     */
+    public boolean exists(String className) {
+        return supertypes(className) != MISSING;
+    }
+
+    /**
+     * @return className 与 superName 相同, 或直接、间接继承/实现了 superName
+     */
+    public boolean isSubtypeOf(String className, String superName) {
+        return supertypes(className).contains(superName);
+    }
+
+    public int size() {
+        return supertypes.size();
+    }
+
+    /**
+     * 包含自身的全部父类型, 无法加载时返回 {@link #MISSING}. 继承关系中没有环, 递归深度即继承深度.
+     */
+    private Set<String> supertypes(String className) {
+        Set<String> result = supertypes.get(className);
+        if (result != null) {
+            return result;
+        }
+        ClassFileSummary summary = read(className);
+        if (summary == null) {
+            result = MISSING;
+        } else {
+            result = new HashSet<>();
+            result.add(className);
+            List<String> parents = new ArrayList<>(summary.getInterfaces());
+            if (summary.getSuperClass() != null) {
+                parents.add(summary.getSuperClass());
+            }
+            for (String parent : parents) {
+                Set<String> parentSupertypes = supertypes(parent.replace('/', '.'));
+                if (parentSupertypes == MISSING) {
+                    result = MISSING;
+                    break;
+                }
+                result.addAll(parentSupertypes);
+            }
+        }
+        Set<String> previous = supertypes.putIfAbsent(className, result);
+        return previous != null ? previous : result;
+    }
+
+    private ClassFileSummary read(String className) {
+        if (className.isEmpty() || className.startsWith("[")) {
+            return null;
+        }
+        try (InputStream in = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            return in == null ? null : ClassFileSummary.read(IOUtils.toByteArray(in));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.wu191287278.maven.swagger.doc.bytecode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 通过编译输出目录中的 class 文件发现 Controller, 只有这些类的源码才需要解析.
+ * <p>
+ * 与源码访问器一致, 按注解的简单类名判断, 因此自定义的同名注解同样会被识别.
+ *
+ * @author yu.wu
+ */
+public class ControllerScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ControllerScanner.class);
+
+    private static final Set<String> CONTROLLERS = new HashSet<>(Arrays.asList("Controller", "RestController", "FeignClient", "Path"));
+
+    private ControllerScanner() {
+    }
+
+    /**
+     * @param classesDirectory 编译输出目录
+     * @param sourceRoot       源码目录
+     * @param sourceFiles      源码目录下的全部源文件
+     * @return 需要解析的源文件: 声明了 Controller 的文件, 以及没有对应 class 文件或 class 文件比源码旧的文件
+     */
+    public static Set<Path> scan(Path classesDirectory, Path sourceRoot, List<Path> sourceFiles) {
+        long start = System.nanoTime();
+        Set<Path> result = new TreeSet<>();
+        int classes = 0;
+        try (Stream<Path> stream = Files.walk(classesDirectory)) {
+            for (Path classFile : stream.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList())) {
+                String fileName = classFile.getFileName().toString();
+                if (fileName.equals("module-info.class") || fileName.equals("package-info.class")) {
+                    continue;
+                }
+                classes++;
+                ClassFileSummary summary;
+                try {
+                    summary = ClassFileSummary.read(Files.readAllBytes(classFile));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Failed to read " + classFile + ", parsing all sources: " + e.getMessage());
+                    return new TreeSet<>(sourceFiles);
+                }
+                if (!isController(summary)) {
+                    continue;
+                }
+                String sourceFile = summary.getSourceFile();
+                if (sourceFile == null) {
+                    String className = summary.getClassName();
+                    int index = className.indexOf('$', className.lastIndexOf('/') + 1);
+                    sourceFile = (index < 0 ? className : className.substring(0, index)).substring(className.lastIndexOf('/') + 1) + ".java";
+                }
+                Path source = sourceRoot.resolve(summary.getPackageName()).resolve(sourceFile).normalize();
+                if (Files.isRegularFile(source)) {
+                    result.add(source);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan " + classesDirectory + ", parsing all sources: " + e.getMessage());
+            return new TreeSet<>(sourceFiles);
+        }
+        int controllers = result.size();
+        for (Path sourceFile : sourceFiles) {
+            if (isStale(classesDirectory, sourceRoot, sourceFile)) {
+                result.add(sourceFile);
+            }
+        }
+        log.info("Scanned " + classes + " classes in " + classesDirectory + ", " + controllers + " controller sources, "
+                + (result.size() - controllers) + " uncompiled sources, " + (System.nanoTime() - start) / 1000000 + "ms");
+        return result;
+    }
+
+    private static boolean isController(ClassFileSummary summary) {
+        for (String annotation : summary.getAnnotations()) {
+            int index = Math.max(annotation.lastIndexOf('/'), annotation.lastIndexOf('$'));
+            if (CONTROLLERS.contains(annotation.substring(index + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 顶层类的 class 文件不存在或比源码旧, 说明源码在上次编译后新增或修改过, 只能解析源码确认.
+     */
+    private static boolean isStale(Path classesDirectory, Path sourceRoot, Path sourceFile) {
+        String relative = sourceRoot.relativize(sourceFile).toString();
+        Path classFile = classesDirectory.resolve(relative.substring(0, relative.length() - ".java".length()) + ".class");
+        try {
+            return !Files.isRegularFile(classFile) || Files.getLastModifiedTime(classFile).compareTo(Files.getLastModifiedTime(sourceFile)) < 0;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.github.wu191287278.maven.swagger.doc.concurrent;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 根据堆内存余量动态调整并发度的任务调度器.
+ * <p>
+ * 解析与输出阶段的任务经由此调度器执行(symbol solver 不是线程安全的, 模块依次访问). 每次任务开始/结束以及每次 GC 结束后都会重新计算堆余量:
+ * 余量低于阈值时并发度减半(最低降为 1,即串行), 余量恢复到阈值两倍以上时逐步增加, 每次调整都会记录日志.
+ *
+ * @author yu.wu
+ */
+public class MemoryAwareScheduler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryAwareScheduler.class);
+
+    public static final String AUTO = "auto";
+
+    private static final long ADJUST_INTERVAL_MILLIS = 500;
+
+    private final int maxParallelism;
+
+    private final int minHeadroomPercent;
+
+    private final ExecutorService executor;
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private final NotificationListener gcListener = (notification, handback) -> onGc();
+
+    private int limit;
+
+    private int running;
+
+    private long lastAdjust;
+
+    public MemoryAwareScheduler(int maxParallelism, int minHeadroomPercent) {
+        this.maxParallelism = Math.max(1, maxParallelism);
+        this.minHeadroomPercent = Math.max(0, Math.min(90, minHeadroomPercent));
+        this.limit = this.maxParallelism;
+        if (this.maxParallelism > 1) {
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(this.maxParallelism, r -> {
+                Thread thread = new Thread(r, "swagger-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+                return thread;
+            });
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter) {
+                    NotificationEmitter emitter = (NotificationEmitter) gc;
+                    emitter.addNotificationListener(gcListener, null, null);
+                    emitters.add(emitter);
+                }
+            }
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * @param parallelism        auto 表示按 CPU 核数, 否则为具体线程数
+     * @param minHeadroomPercent 堆余量阈值(百分比)
+     */
+    public static MemoryAwareScheduler of(String parallelism, int minHeadroomPercent) {
+        int max;
+        if (parallelism == null || parallelism.trim().isEmpty() || AUTO.equalsIgnoreCase(parallelism.trim())) {
+            max = Runtime.getRuntime().availableProcessors();
+        } else {
+            try {
+                max = Integer.parseInt(parallelism.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid parallelism '" + parallelism + "', falling back to " + AUTO);
+                max = Runtime.getRuntime().availableProcessors();
+            }
+        }
+        return new MemoryAwareScheduler(max, minHeadroomPercent);
+    }
+
+    public static MemoryAwareScheduler sequential() {
+        return new MemoryAwareScheduler(1, 0);
+    }
+
+    /**
+     * 执行全部任务并按提交顺序返回结果. 任务不可在内部再次调用 invokeAll, 否则可能因线程池耗尽而死锁.
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (executor == null || tasks.size() <= 1) {
+            for (Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                acquire();
+                try {
+                    return task.call();
+                } finally {
+                    release();
+                }
+            }));
+        }
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 与 {@link #invokeAll(List)} 相同, 但最多等待到截止时间. 截止时间之后仍未完成的任务被取消(中断), 结果为 null;
+     * 无法响应中断的任务在守护线程中继续运行直至结束. 串行模式下任务在临时的守护线程中执行, 调用方同样不会被阻塞.
+     *
+     * @param deadline 截止时间(System.nanoTime), 0 表示不限制
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks, long deadline) {
+        if (deadline == 0) {
+            return invokeAll(tasks);
+        }
+        ExecutorService executor = this.executor != null ? this.executor : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "swagger-worker");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    acquire();
+                    try {
+                        return task.call();
+                    } finally {
+                        release();
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    results.add(null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    throw rethrow(e);
+                }
+            }
+            return results;
+        } finally {
+            if (executor != this.executor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 当前是否允许并发执行.
+     */
+    public synchronized boolean isParallel() {
+        return executor != null && limit > 1;
+    }
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    private static RuntimeException rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized void acquire() throws InterruptedException {
+        adjust(false);
+        while (running >= limit) {
+            wait(ADJUST_INTERVAL_MILLIS);
+            adjust(false);
+        }
+        running++;
+    }
+
+    private synchronized void release() {
+        running--;
+        adjust(false);
+        notifyAll();
+    }
+
+    private synchronized void onGc() {
+        adjust(true);
+        notifyAll();
+    }
+
+    private void adjust(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastAdjust < ADJUST_INTERVAL_MILLIS) {
+            return;
+        }
+        lastAdjust = now;
+        int headroom = headroomPercent();
+        if (headroom < minHeadroomPercent && limit > 1) {
+            limit = Math.max(1, limit / 2);
+            log.warn("Heap headroom " + headroom + "% is below " + minHeadroomPercent + "%, "
+                    + (limit == 1 ? "switching to sequential mode" : "reducing parallelism to " + limit));
+        } else if (headroom >= Math.min(100, minHeadroomPercent * 2) && limit < maxParallelism) {
+            limit++;
+            log.info("Heap headroom recovered to " + headroom + "%, increasing parallelism to " + limit);
+        }
+    }
+
+    /**
+     * 估算存活对象大小: 新生代使用最近一次 GC 后的占用; 老年代取 GC 后占用与当前占用的较大值,
+     * 因为 Parallel、Serial 收集器在第一次 full GC 之前老年代的 GC 后占用一直为 0.
+     */
+    private static int headroomPercent() {
+        long max = Runtime.getRuntime().maxMemory();
+        if (max <= 0 || max == Long.MAX_VALUE) {
+            return 100;
+        }
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            MemoryUsage collectionUsage = pool.getCollectionUsage();
+            MemoryUsage usage = pool.getUsage();
+            if (collectionUsage != null && isYoung(pool)) {
+                used += collectionUsage.getUsed();
+            } else if (usage != null) {
+                used += Math.max(usage.getUsed(), collectionUsage == null ? 0 : collectionUsage.getUsed());
+            }
+        }
+        return (int) Math.max(0, (max - used) * 100 / max);
+    }
+
+    /**
+     * Eden 与 Survivor 区, 每次 young GC 后即被清空.
+     */
+    private static boolean isYoung(MemoryPoolMXBean pool) {
+        String name = pool.getName();
+        return name.contains("Eden") || name.contains("Survivor");
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ignore) {
+            }
+        }
+        emitters.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
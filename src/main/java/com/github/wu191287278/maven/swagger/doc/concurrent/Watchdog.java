@@ -0,0 +1,120 @@
+package com.github.wu191287278.maven.swagger.doc.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个模块访问过程的超时检查: 每个源文件的时间上限, 以及整次生成的截止时间.
+ * <p>
+ * symbol solver 无法安全地中断, 因此由解析过程在展开每个类型、访问每个接口前调用 {@link #isExpired()} 主动放弃.
+ * 超时后当前源文件剩余的类型解析为空对象, 剩余接口不再访问; 截止时间之后的源文件不再访问, 已生成的部分仍是有效的文档.
+ * 卡在单次调用中无法主动放弃的源文件, 由访问方等待 {@link #remainingNanos()} 后调用 {@link #abandon()} 放弃,
+ * 仍在运行的线程此后的检查都返回超时. 被放弃的线程可能仍在运行, 但只使用自己的 visitor 与 symbol solver,
+ * 之后的源文件由新的线程使用 {@link #renew()} 得到的新实例访问.
+ *
+ * @author yu.wu
+ */
+public class Watchdog {
+
+    public static final Watchdog NONE = new Watchdog(0, 0);
+
+    private final long unitTimeoutNanos;
+
+    private final long deadline;
+
+    private long unitDeadline;
+
+    private boolean expired;
+
+    private volatile boolean abandoned;
+
+    /**
+     * @param unitTimeoutMillis 每个源文件的时间上限, 0 表示不限制
+     * @param deadline          整次生成的截止时间(System.nanoTime), 0 表示不限制
+     */
+    public Watchdog(long unitTimeoutMillis, long deadline) {
+        this.unitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(unitTimeoutMillis);
+        this.deadline = deadline;
+        this.unitDeadline = deadline;
+    }
+
+    /**
+     * 开始访问一个源文件.
+     */
+    public void startUnit() {
+        if (this == NONE) {
+            return;
+        }
+        expired = false;
+        unitDeadline = deadline;
+        if (unitTimeoutNanos > 0) {
+            long unit = System.nanoTime() + unitTimeoutNanos;
+            if (deadline == 0 || unit - deadline < 0) {
+                unitDeadline = unit;
+            }
+        }
+    }
+
+    /**
+     * 当前源文件超时或已过截止时间, 超时后直到下一个源文件开始前一直返回 true.
+     */
+    public boolean isExpired() {
+        if (abandoned) {
+            return true;
+        }
+        if (!expired && unitDeadline != 0 && System.nanoTime() - unitDeadline > 0) {
+            expired = true;
+        }
+        return expired;
+    }
+
+    /**
+     * 设置了源文件时间上限或截止时间.
+     */
+    public boolean isLimited() {
+        return unitTimeoutNanos > 0 || deadline != 0;
+    }
+
+    /**
+     * 当前源文件剩余的时间, 不限制时返回 Long.MAX_VALUE.
+     */
+    public long remainingNanos() {
+        if (unitDeadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, unitDeadline - System.nanoTime());
+    }
+
+    /**
+     * 放弃仍在运行的源文件, 此后 {@link #isExpired()} 一直返回 true. 之后的源文件使用 {@link #renew()} 得到的新实例.
+     */
+    public void abandon() {
+        abandoned = true;
+    }
+
+    /**
+     * 时间上限与截止时间相同的新实例.
+     */
+    public Watchdog renew() {
+        return this == NONE ? NONE : new Watchdog(TimeUnit.NANOSECONDS.toMillis(unitTimeoutNanos), deadline);
+    }
+
+    /**
+     * 已过整次生成的截止时间.
+     */
+    public boolean isDeadlineExceeded() {
+        return deadline != 0 && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * 截止时间, 0 表示不限制.
+     *
+     * @param timeoutMillis 从现在开始的时长, 0 表示不限制
+     */
+    public static long deadline(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        return deadline == 0 ? 1 : deadline;
+    }
+}
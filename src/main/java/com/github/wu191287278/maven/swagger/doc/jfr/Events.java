@@ -0,0 +1,66 @@
+package com.github.wu191287278.maven.swagger.doc.jfr;
+
+import java.util.function.Supplier;
+
+/**
+ * Java Flight Recorder 事件入口.
+ * <p>
+ * 运行环境没有 jdk.jfr(早期的 Java 8)时所有方法都返回 {@link Span#NOOP}; 有 jdk.jfr 但未开启录制时,
+ * 只会创建一个未启用的事件对象并立即返回, 不会计算事件字段.
+ *
+ * @author yu.wu
+ */
+public final class Events {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private Events() {
+    }
+
+    /**
+     * 解析单个源文件.
+     */
+    public static Span parse(String file) {
+        return AVAILABLE ? JfrSpans.parse(file) : Span.NOOP;
+    }
+
+    /**
+     * 访问单个编译单元, 生成接口与模型.
+     */
+    public static Span visit(String file) {
+        return AVAILABLE ? JfrSpans.visit(file) : Span.NOOP;
+    }
+
+    /**
+     * 解析一个引用类型为 swagger 模型.
+     *
+     * @param type  类型名称, 只有事件需要提交时才会计算
+     * @param depth 当前嵌套深度, 从 1 开始
+     */
+    public static Span resolve(Supplier<String> type, int depth) {
+        return AVAILABLE ? JfrSpans.resolve(type, depth) : Span.NOOP;
+    }
+
+    /**
+     * 输出文档文件.
+     */
+    public static Span write(String file) {
+        return AVAILABLE ? JfrSpans.write(file) : Span.NOOP;
+    }
+
+    /**
+     * 获取外部 swagger 文件(modelPath/mergeModel).
+     */
+    public static Span mergeModel(String location) {
+        return AVAILABLE ? JfrSpans.mergeModel(location) : Span.NOOP;
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Events.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.wu191287278.maven.swagger.doc.jfr;
+
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * jdk.jfr 相关的类只在此处引用, 仅当 {@link Events} 确认 jdk.jfr 可用后才会被加载.
+ *
+ * @author yu.wu
+ */
+final class JfrSpans {
+
+    private static final String CATEGORY = "Swagger";
+
+    private JfrSpans() {
+    }
+
+    static Span parse(String file) {
+        ParseEvent event = new ParseEvent();
+        if (!event.isEnabled()) {
+            return Span.NOOP;
+        }
+        event.file = file;
+        return start(event);
+    }
+
+    static Span visit(String file) {
+        VisitEvent event = new VisitEvent();
+        if (!event.isEnabled()) {
+            return Span.NOOP;
+        }
+        event.file = file;
+        return start(event);
+    }
+
+    static Span resolve(Supplier<String> type, int depth) {
+        ResolveEvent event = new ResolveEvent();
+        if (!event.isEnabled()) {
+            return Span.NOOP;
+        }
+        event.depth = depth;
+        event.begin();
+        return () -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = type.get();
+                event.commit();
+            }
+        };
+    }
+
+    static Span write(String file) {
+        WriteEvent event = new WriteEvent();
+        if (!event.isEnabled()) {
+            return Span.NOOP;
+        }
+        event.file = file;
+        return start(event);
+    }
+
+    static Span mergeModel(String location) {
+        MergeModelEvent event = new MergeModelEvent();
+        if (!event.isEnabled()) {
+            return Span.NOOP;
+        }
+        event.location = location;
+        return start(event);
+    }
+
+    private static Span start(Event event) {
+        event.begin();
+        return event::commit;
+    }
+
+    @Name("com.github.wu191287278.swagger.Parse")
+    @Label("Parse Compilation Unit")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class ParseEvent extends Event {
+
+        @Label("File")
+        String file;
+    }
+
+    @Name("com.github.wu191287278.swagger.Visit")
+    @Label("Visit Compilation Unit")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class VisitEvent extends Event {
+
+        @Label("File")
+        String file;
+    }
+
+    @Name("com.github.wu191287278.swagger.Resolve")
+    @Label("Resolve Type")
+    @Description("ResolveSwaggerType.resolveRefProperty, depth starts at 1")
+    @Category(CATEGORY)
+    static class ResolveEvent extends Event {
+
+        @Label("Type")
+        String type;
+
+        @Label("Depth")
+        int depth;
+    }
+
+    @Name("com.github.wu191287278.swagger.Write")
+    @Label("Write Spec")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class WriteEvent extends Event {
+
+        @Label("File")
+        String file;
+    }
+
+    @Name("com.github.wu191287278.swagger.MergeModel")
+    @Label("Fetch Merge Model")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class MergeModelEvent extends Event {
+
+        @Label("Location")
+        String location;
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.wu191287278.maven.swagger.doc.jfr;
+
+/**
+ * 一段被记录的耗时操作, 结束时调用 {@link #close()} 提交事件.
+ *
+ * @author yu.wu
+ */
+@FunctionalInterface
+public interface Span extends AutoCloseable {
+
+    Span NOOP = () -> {
+    };
+
+    @Override
+    void close();
+}
@@ -0,0 +1,187 @@
+package com.github.wu191287278.maven.swagger.doc.protobuf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 由 protoc 生成的 FileDescriptorSet(.desc/.pb) 建立 java 类名到消息 descriptor 的索引.
+ * <p>
+ * 类名按 protoc 的 java 代码生成规则(java_package, java_outer_classname, java_multiple_files)推算,
+ * 命中索引的消息无需加载生成的消息类, 也不会触发 protobuf 运行时的初始化.
+ *
+ * @author yu.wu
+ */
+public class ProtobufDescriptorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProtobufDescriptorIndex.class);
+
+    private final Map<String, Descriptors.FileDescriptor> files = new HashMap<>();
+
+    private final Map<String, Descriptors.Descriptor> messages = new ConcurrentHashMap<>();
+
+    /**
+     * @param className 源码中的全名, 嵌套类以 '.' 分隔
+     */
+    public Descriptors.Descriptor get(String className) {
+        return messages.get(className);
+    }
+
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * 读取文件或目录(递归查找 .desc/.pb 文件).
+     */
+    public void load(File file) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                return;
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.isDirectory() || child.getName().endsWith(".desc") || child.getName().endsWith(".pb")) {
+                    load(child);
+                }
+            }
+            return;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            load(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read descriptor set " + file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void load(InputStream in) throws IOException {
+        DescriptorProtos.FileDescriptorSet set = DescriptorProtos.FileDescriptorSet.parseFrom(in);
+        Map<String, DescriptorProtos.FileDescriptorProto> protos = new LinkedHashMap<>();
+        for (DescriptorProtos.FileDescriptorProto proto : set.getFileList()) {
+            protos.put(proto.getName(), proto);
+        }
+        for (String name : protos.keySet()) {
+            build(name, protos, new HashSet<>());
+        }
+    }
+
+    /**
+     * 依赖优先构建. 依赖既不在本文件集也不在之前读取的文件集中时(未使用 --include_imports), 按未知依赖处理,
+     * 引用其中的消息只会得到空的 definition.
+     */
+    private Descriptors.FileDescriptor build(String name, Map<String, DescriptorProtos.FileDescriptorProto> protos, Set<String> building) {
+        Descriptors.FileDescriptor built = files.get(name);
+        if (built != null) {
+            return built;
+        }
+        DescriptorProtos.FileDescriptorProto proto = protos.get(name);
+        if (proto == null || !building.add(name)) {
+            return null;
+        }
+        List<Descriptors.FileDescriptor> dependencies = new ArrayList<>();
+        for (String dependency : proto.getDependencyList()) {
+            Descriptors.FileDescriptor descriptor = build(dependency, protos, building);
+            if (descriptor != null) {
+                dependencies.add(descriptor);
+            }
+        }
+        try {
+            built = Descriptors.FileDescriptor.buildFrom(proto, dependencies.toArray(new Descriptors.FileDescriptor[0]), true);
+        } catch (Descriptors.DescriptorValidationException e) {
+            log.warn("Invalid descriptor " + name + ": " + e.getMessage());
+            return null;
+        }
+        files.put(name, built);
+        String prefix = getJavaClassPrefix(built);
+        for (Descriptors.Descriptor message : built.getMessageTypes()) {
+            index(prefix, message);
+        }
+        return built;
+    }
+
+    private void index(String prefix, Descriptors.Descriptor message) {
+        String className = prefix + message.getName();
+        messages.putIfAbsent(className, message);
+        for (Descriptors.Descriptor nested : message.getNestedTypes()) {
+            index(className + ".", nested);
+        }
+    }
+
+    /**
+     * 顶层消息类名的前缀: java 包名, 未开启 java_multiple_files 时再加上外部类名.
+     */
+    private static String getJavaClassPrefix(Descriptors.FileDescriptor file) {
+        DescriptorProtos.FileOptions options = file.getOptions();
+        String javaPackage = options.hasJavaPackage() ? options.getJavaPackage() : file.getPackage();
+        String prefix = javaPackage.isEmpty() ? "" : javaPackage + ".";
+        if (options.getJavaMultipleFiles()) {
+            return prefix;
+        }
+        return prefix + getOuterClassName(file) + ".";
+    }
+
+    private static String getOuterClassName(Descriptors.FileDescriptor file) {
+        DescriptorProtos.FileOptions options = file.getOptions();
+        if (options.hasJavaOuterClassname()) {
+            return options.getJavaOuterClassname();
+        }
+        String name = file.getName();
+        name = name.substring(name.lastIndexOf('/') + 1);
+        if (name.endsWith(".proto")) {
+            name = name.substring(0, name.length() - ".proto".length());
+        }
+        String className = toCamelCase(name);
+        for (Descriptors.Descriptor message : file.getMessageTypes()) {
+            if (message.getName().equals(className)) {
+                return className + "OuterClass";
+            }
+        }
+        for (Descriptors.EnumDescriptor enumType : file.getEnumTypes()) {
+            if (enumType.getName().equals(className)) {
+                return className + "OuterClass";
+            }
+        }
+        for (Descriptors.ServiceDescriptor service : file.getServices()) {
+            if (service.getName().equals(className)) {
+                return className + "OuterClass";
+            }
+        }
+        return className;
+    }
+
+    /**
+     * 与 protoc 的 UnderscoresToCamelCase 一致: 非字母数字字符与数字之后的小写字母转为大写.
+     */
+    private static String toCamelCase(String name) {
+        StringBuilder builder = new StringBuilder();
+        boolean upper = true;
+        for (char c : name.toCharArray()) {
+            if (c >= 'a' && c <= 'z') {
+                builder.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else if (c >= 'A' && c <= 'Z') {
+                builder.append(c);
+                upper = false;
+            } else if (c >= '0' && c <= '9') {
+                builder.append(c);
+                upper = true;
+            } else {
+                upper = true;
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.wu191287278.maven.swagger.doc.protobuf;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.wu191287278.maven.swagger.doc.bytecode.ClassHierarchy;
+import com.google.protobuf.AbstractMessage;
+import com.google.protobuf.Descriptors;
+import io.swagger.models.properties.*;
+
+/**
+ * protobuf 消息模型缓存.
+ * <p>
+ * 每个消息按 descriptor 全名只解析一次, 生成同名的 definition; 消息类型的字段一律使用 $ref 引用, 不再展开,
+ * 因此递归消息(例如树节点)与被多处引用的消息都不会重复展开. 获取某个消息的模型时沿引用收集全部相关 definitions.
+ *
+ * @author yu.wu
+ */
+public class ProtobufModelCache {
+
+    private final Map<String, Definition> definitions = new ConcurrentHashMap<>();
+
+    private final Map<String, Boolean> messageClasses = new ConcurrentHashMap<>();
+
+    private final ProtobufDescriptorIndex descriptorIndex = new ProtobufDescriptorIndex();
+
+    private ClassHierarchy classHierarchy;
+
+    /**
+     * 由 descriptor set 文件建立的索引, 优先于加载消息类.
+     */
+    public ProtobufDescriptorIndex getDescriptorIndex() {
+        return descriptorIndex;
+    }
+
+    /**
+     * 判断类是否为 protobuf 生成的消息类. 先查 descriptor set 索引, 未命中时才加载类, 结果按类名缓存.
+     *
+     * @return 不是消息类或无法加载时返回 null
+     */
+    public Descriptors.Descriptor getDescriptor(String className, ClassLoader classLoader) {
+        Descriptors.Descriptor indexed = descriptorIndex.get(className);
+        if (indexed != null) {
+            return indexed;
+        }
+        if (Boolean.FALSE.equals(messageClasses.get(className))) {
+            return null;
+        }
+        try {
+            Class<?> clazz = loadClass(className, getClassHierarchy(classLoader));
+            if (clazz != null && AbstractMessage.class.isAssignableFrom(clazz)) {
+                Descriptors.Descriptor descriptor = (Descriptors.Descriptor) clazz.getMethod("getDescriptor").invoke(null);
+                messageClasses.put(className, Boolean.TRUE);
+                return descriptor;
+            }
+        } catch (Exception | LinkageError ignore) {
+        }
+        messageClasses.put(className, Boolean.FALSE);
+        return null;
+    }
+
+    /**
+     * 消息本身及其直接或间接引用的全部消息的 definitions, 第一个为该消息本身. 返回的属性为副本.
+     */
+    public Map<String, ObjectProperty> resolve(Descriptors.Descriptor descriptor) {
+        Map<String, ObjectProperty> result = new LinkedHashMap<>();
+        Deque<Descriptors.Descriptor> pending = new ArrayDeque<>();
+        pending.add(descriptor);
+        while (!pending.isEmpty()) {
+            Descriptors.Descriptor current = pending.poll();
+            if (result.containsKey(current.getFullName())) {
+                continue;
+            }
+            Definition definition = getDefinition(current);
+            result.put(current.getFullName(), copy(definition.property));
+            pending.addAll(definition.references);
+        }
+        return result;
+    }
+
+    private synchronized ClassHierarchy getClassHierarchy(ClassLoader classLoader) {
+        if (classHierarchy == null || classHierarchy.getClassLoader() != classLoader) {
+            classHierarchy = new ClassHierarchy(classLoader);
+        }
+        return classHierarchy;
+    }
+
+    /**
+     * 生成的消息类通常嵌套在外部类中, 源码中的全名需要将后几段的 '.' 换成 '$' 才能加载.
+     * 先由 class 文件确认是消息类再加载, 其他类型不会被加载.
+     */
+    private static Class<?> loadClass(String className, ClassHierarchy hierarchy) throws ClassNotFoundException {
+        String name = className;
+        while (!hierarchy.exists(name)) {
+            int index = name.lastIndexOf('.');
+            if (index <= 0 || !Character.isUpperCase(name.charAt(name.lastIndexOf('.', index - 1) + 1))) {
+                return null;
+            }
+            name = name.substring(0, index) + "$" + name.substring(index + 1);
+        }
+        if (!hierarchy.isSubtypeOf(name, AbstractMessage.class.getName())) {
+            return null;
+        }
+        return Class.forName(name, false, hierarchy.getClassLoader());
+    }
+
+    public int size() {
+        return definitions.size();
+    }
+
+    public static String getDefinitionName(Descriptors.Descriptor descriptor) {
+        return descriptor.getFullName();
+    }
+
+    private Definition getDefinition(Descriptors.Descriptor descriptor) {
+        Definition definition = definitions.get(descriptor.getFullName());
+        if (definition != null) {
+            return definition;
+        }
+        ObjectProperty property = new ObjectProperty(new LinkedHashMap<>());
+        property.setName(getDefinitionName(descriptor));
+        List<Descriptors.Descriptor> references = new ArrayList<>();
+        for (Descriptors.FieldDescriptor field : descriptor.getFields()) {
+            property.property(field.getJsonName(), resolve(field, references));
+        }
+        definition = new Definition(property, references);
+        Definition previous = definitions.putIfAbsent(descriptor.getFullName(), definition);
+        return previous != null ? previous : definition;
+    }
+
+    private static Property resolve(Descriptors.FieldDescriptor field, List<Descriptors.Descriptor> references) {
+        if (field.isMapField()) {
+            Descriptors.FieldDescriptor value = field.getMessageType().findFieldByName("value");
+            return new MapProperty(resolveValue(value, references));
+        }
+        Property property = resolveValue(field, references);
+        if (field.isRepeated()) {
+            return new ArrayProperty(property);
+        }
+        return property;
+    }
+
+    private static Property resolveValue(Descriptors.FieldDescriptor field, List<Descriptors.Descriptor> references) {
+        switch (field.getJavaType()) {
+            case INT:
+                return new IntegerProperty();
+            case LONG:
+                return new LongProperty();
+            case FLOAT:
+                return new FloatProperty();
+            case DOUBLE:
+                return new DoubleProperty();
+            case BOOLEAN:
+                return new BooleanProperty();
+            case BYTE_STRING:
+                return new ByteArrayProperty();
+            case ENUM:
+                List<String> values = new ArrayList<>();
+                for (Descriptors.EnumValueDescriptor value : field.getEnumType().getValues()) {
+                    values.add(value.getName());
+                }
+                return new StringProperty()._enum(values);
+            case MESSAGE:
+                references.add(field.getMessageType());
+                return new RefProperty("#/definitions/" + getDefinitionName(field.getMessageType()));
+            case STRING:
+            default:
+                return new StringProperty();
+        }
+    }
+
+    /**
+     * definition 会被调用方修改 description 等属性, 缓存中的对象不对外暴露.
+     */
+    private static ObjectProperty copy(ObjectProperty property) {
+        ObjectProperty copy = new ObjectProperty(new LinkedHashMap<>(property.getProperties()));
+        copy.setName(property.getName());
+        return copy;
+    }
+
+    private static class Definition {
+
+        private final ObjectProperty property;
+
+        private final List<Descriptors.Descriptor> references;
+
+        private Definition(ObjectProperty property, List<Descriptors.Descriptor> references) {
+            this.property = property;
+            this.references = Collections.unmodifiableList(references);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.wu191287278.maven.swagger.doc.report;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按接口、Controller 与类型归集的生成耗时.
+ * <p>
+ * 接口耗时来自 RestVisitorAdapter/JavaxRsVisitorAdapter 对每个接口方法的访问, 类型耗时来自 ResolveSwaggerType 对每个引用类型的解析.
+ * 类型耗时包含其嵌套类型的解析时间, 因此各类型之和会大于总耗时. 命中已解析类型缓存的类型不会再次计入.
+ *
+ * @author yu.wu
+ */
+public class CostReport {
+
+    private final Map<String, Cost> controllers = new ConcurrentHashMap<>();
+
+    private final Map<String, Cost> endpoints = new ConcurrentHashMap<>();
+
+    private final Map<String, Cost> types = new ConcurrentHashMap<>();
+
+    private final Map<String, Cost> failures = new ConcurrentHashMap<>();
+
+    private final Map<String, Cost> truncations = new ConcurrentHashMap<>();
+
+    private final Map<String, Cost> abandoned = new ConcurrentHashMap<>();
+
+    public void recordEndpoint(String controller, String method, long nanos) {
+        controllers.computeIfAbsent(controller, Cost::new).add(nanos, 0, 0);
+        endpoints.computeIfAbsent(controller + "#" + method, Cost::new).add(nanos, 0, 0);
+    }
+
+    /**
+     * @param depth 该类型模型图的层数
+     * @param width 该类型的属性个数
+     */
+    public void recordType(String type, long nanos, int depth, int width) {
+        types.computeIfAbsent(type, Cost::new).add(nanos, depth, width);
+    }
+
+    /**
+     * 记录一次无法解析的符号.
+     */
+    public void recordFailure(String symbol) {
+        failures.computeIfAbsent(symbol == null ? "<unknown>" : symbol, Cost::new).add(0, 0, 0);
+    }
+
+    /**
+     * 记录一次因预算截断的类型.
+     *
+     * @param limit 超出的预算
+     */
+    public void recordTruncation(String type, String limit) {
+        truncations.computeIfAbsent(type + " [" + limit + "]", Cost::new).add(0, 0, 0);
+    }
+
+    /**
+     * 记录一个超时放弃或因截止时间跳过的源文件.
+     *
+     * @param limit 超出的时间上限
+     */
+    public void recordAbandoned(String unit, String limit, long nanos) {
+        abandoned.computeIfAbsent((unit == null ? "<unknown>" : unit) + " [" + limit + "]", Cost::new).add(nanos, 0, 0);
+    }
+
+    public boolean isEmpty() {
+        return endpoints.isEmpty() && types.isEmpty() && failures.isEmpty() && truncations.isEmpty() && abandoned.isEmpty();
+    }
+
+    public void clear() {
+        controllers.clear();
+        endpoints.clear();
+        types.clear();
+        failures.clear();
+        truncations.clear();
+        abandoned.clear();
+    }
+
+    /**
+     * 按耗时、深度、宽度、失败次数、截断次数、放弃的源文件耗时排序的报告, 每项最多 limit 条.
+     */
+    public List<String> format(int limit) {
+        List<String> lines = new ArrayList<>();
+        section(lines, "Slowest controllers", controllers, Cost::getNanos, limit, c -> millis(c.getNanos()) + " ms, " + c.getCount() + " endpoints");
+        section(lines, "Slowest endpoints", endpoints, Cost::getNanos, limit, c -> millis(c.getNanos()) + " ms");
+        section(lines, "Types by cumulative resolution time", types, Cost::getNanos, limit, c -> millis(c.getNanos()) + " ms, " + c.getCount() + " resolutions");
+        section(lines, "Deepest model graphs", types, Cost::getDepth, limit, c -> c.getDepth() + " levels");
+        section(lines, "Widest models", types, Cost::getWidth, limit, c -> c.getWidth() + " properties");
+        section(lines, "Most frequent resolution failures", failures, Cost::getCount, limit, c -> c.getCount() + " failures");
+        section(lines, "Truncated types", truncations, Cost::getCount, limit, c -> c.getCount() + " truncations");
+        section(lines, "Abandoned compilation units", abandoned, Cost::getNanos, limit, c -> millis(c.getNanos()) + " ms");
+        return lines;
+    }
+
+    private static void section(List<String> lines, String title, Map<String, Cost> costs, ToLongFunction<Cost> key, int limit,
+                                Function<Cost, String> describe) {
+        List<Cost> sorted = new ArrayList<>(costs.values());
+        if (sorted.isEmpty()) {
+            return;
+        }
+        sorted.sort(Comparator.comparingLong(key).reversed().thenComparing(Cost::getName));
+        lines.add(title + ":");
+        for (int i = 0; i < sorted.size() && i < limit; i++) {
+            Cost cost = sorted.get(i);
+            lines.add(String.format("  %3d. %s (%s)", i + 1, cost.getName(), describe.apply(cost)));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private static class Cost {
+
+        private final String name;
+
+        private long nanos;
+
+        private long count;
+
+        private long depth;
+
+        private long width;
+
+        private Cost(String name) {
+            this.name = name;
+        }
+
+        private synchronized void add(long nanos, int depth, int width) {
+            this.nanos += nanos;
+            this.count++;
+            this.depth = Math.max(this.depth, depth);
+            this.width = Math.max(this.width, width);
+        }
+
+        private String getName() {
+            return name;
+        }
+
+        private synchronized long getNanos() {
+            return nanos;
+        }
+
+        private synchronized long getCount() {
+            return count;
+        }
+
+        private synchronized long getDepth() {
+            return depth;
+        }
+
+        private synchronized long getWidth() {
+            return width;
+        }
+    }
+}
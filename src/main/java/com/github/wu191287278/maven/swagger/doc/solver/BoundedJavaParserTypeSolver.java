@@ -0,0 +1,93 @@
+package com.github.wu191287278.maven.swagger.doc.solver;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 缓存容量受限的 JavaParserTypeSolver.
+ * <p>
+ * JavaParserTypeSolver 内部的三个缓存(已解析文件、按目录解析的文件、已找到的类型)只使用 softValues, 在大模块中会一直增长到堆压力出现.
+ * 这里在构造后将它们替换为带上限的 LRU 缓存, 并记录峰值占用与淘汰数量. 上限为 0 时保持原有的不限制行为.
+ *
+ * @author yu.wu
+ */
+public class BoundedJavaParserTypeSolver extends JavaParserTypeSolver {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedJavaParserTypeSolver.class);
+
+    private final SolverCacheStatistics fileStatistics;
+
+    private final SolverCacheStatistics directoryStatistics;
+
+    private final SolverCacheStatistics typeStatistics;
+
+    private Cache<?, ?> parsedFiles;
+
+    private Cache<?, ?> parsedDirectories;
+
+    private Cache<?, ?> foundTypes;
+
+    /**
+     * @param maxCompilationUnits 已解析文件缓存的上限, 按目录缓存的解析结果以文件数计入同一上限
+     * @param maxTypes            已找到类型缓存的上限
+     */
+    public BoundedJavaParserTypeSolver(File srcDir, long maxCompilationUnits, long maxTypes) {
+        super(srcDir);
+        this.fileStatistics = new SolverCacheStatistics("files", maxCompilationUnits);
+        this.directoryStatistics = new SolverCacheStatistics("directories", maxCompilationUnits);
+        this.typeStatistics = new SolverCacheStatistics("types", maxTypes);
+        try {
+            this.parsedFiles = replace("parsedFiles", newCache(maxCompilationUnits, false, fileStatistics));
+            this.parsedDirectories = replace("parsedDirectories", newCache(maxCompilationUnits, true, directoryStatistics));
+            this.foundTypes = replace("foundTypes", newCache(maxTypes, false, typeStatistics));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Unable to bound symbol solver caches of " + srcDir + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        SymbolReference<ResolvedReferenceTypeDeclaration> reference = super.tryToSolveType(name);
+        if (parsedFiles != null) {
+            fileStatistics.record(parsedFiles.size());
+            directoryStatistics.record(parsedDirectories.size());
+            typeStatistics.record(foundTypes.size());
+        }
+        return reference;
+    }
+
+    public List<SolverCacheStatistics> getStatistics() {
+        return Arrays.asList(fileStatistics, directoryStatistics, typeStatistics);
+    }
+
+    private Cache<?, ?> replace(String fieldName, Cache<?, ?> cache) throws ReflectiveOperationException {
+        Field field = JavaParserTypeSolver.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(this, cache);
+        return cache;
+    }
+
+    private static Cache<Object, Object> newCache(long limit, boolean weighByList, SolverCacheStatistics statistics) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .softValues()
+                .removalListener(statistics::onRemoval);
+        if (limit > 0) {
+            if (weighByList) {
+                builder.maximumWeight(limit).weigher((key, value) -> value instanceof List ? Math.max(1, ((List<?>) value).size()) : 1);
+            } else {
+                builder.maximumSize(limit);
+            }
+        }
+        return builder.build();
+    }
+}
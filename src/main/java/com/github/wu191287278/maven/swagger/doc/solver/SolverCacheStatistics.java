@@ -0,0 +1,85 @@
+package com.github.wu191287278.maven.swagger.doc.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * 单个 symbol solver 缓存的占用与淘汰统计.
+ *
+ * @author yu.wu
+ */
+public class SolverCacheStatistics {
+
+    private final String name;
+
+    private final long limit;
+
+    private final AtomicLong peak = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong collected = new AtomicLong();
+
+    public SolverCacheStatistics(String name, long limit) {
+        this.name = name;
+        this.limit = limit;
+    }
+
+    void record(long size) {
+        peak.accumulateAndGet(size, Math::max);
+    }
+
+    void onRemoval(RemovalNotification<?, ?> notification) {
+        if (notification.getCause() == RemovalCause.SIZE) {
+            evictions.incrementAndGet();
+        } else if (notification.getCause() == RemovalCause.COLLECTED) {
+            collected.incrementAndGet();
+        }
+    }
+
+    /**
+     * 累加另一个 solver 的统计, 峰值取各 solver 峰值之和(上界).
+     */
+    public void add(SolverCacheStatistics other) {
+        peak.addAndGet(other.getPeak());
+        evictions.addAndGet(other.getEvictions());
+        collected.addAndGet(other.getCollected());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 0 表示不限制.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getPeak() {
+        return peak.get();
+    }
+
+    /**
+     * 因超出上限被淘汰的数量.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * 内存不足时被 GC 回收的数量.
+     */
+    public long getCollected() {
+        return collected.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": peak " + getPeak() + (limit > 0 ? "/" + limit : "") + ", evictions " + getEvictions()
+                + ", collected " + getCollected();
+    }
+}
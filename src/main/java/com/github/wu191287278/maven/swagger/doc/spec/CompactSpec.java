@@ -0,0 +1,321 @@
+package com.github.wu191287278.maven.swagger.doc.spec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.swagger.models.Swagger;
+
+/**
+ * 单个模块文档的紧凑表示. 模块访问完成后立即由 Swagger 转换而来, 输出时直接写出,
+ * 因此等待输出期间不再保留 Operation、ModelImpl 以及各类 Property 对象.
+ * <p>
+ * 按 JSON 结构保存: 对象为字段名列表与值数组, 字段名、字符串以及结构相同的对象与数组经 {@link SpecInterner} 驻留.
+ * 不可修改, 对文档的修改在转换之前由 {@link com.github.wu191287278.maven.swagger.doc.GenerateOptions#setPostProcessor} 完成.
+ *
+ * @author yu.wu
+ */
+public final class CompactSpec {
+
+    /**
+     * 与输出文档时的配置一致, 保证直接写出的 JSON 与由 Swagger 输出的相同.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final ObjectValue root;
+
+    private CompactSpec(ObjectValue root) {
+        this.root = root;
+    }
+
+    public static CompactSpec of(Swagger swagger, SpecInterner interner) {
+        try {
+            TokenBuffer buffer = new TokenBuffer(MAPPER, false);
+            MAPPER.writeValue(buffer, swagger);
+            try (JsonParser parser = buffer.asParser()) {
+                parser.nextToken();
+                return new CompactSpec((ObjectValue) read(parser, interner));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 转换为 JSON 树, 字段顺序与输出的文档相同.
+     */
+    public ObjectNode toTree() {
+        try {
+            TokenBuffer buffer = new TokenBuffer(MAPPER, false);
+            write(root, buffer);
+            try (JsonParser parser = buffer.asParser()) {
+                return MAPPER.readTree(parser);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 以默认的缩进格式写出, 与 ObjectMapper#writerWithDefaultPrettyPrinter 的结果相同.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writeTo(writer, false);
+    }
+
+    /**
+     * @param minify 不缩进不换行
+     */
+    public void writeTo(Writer writer, boolean minify) throws IOException {
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            if (!minify) {
+                generator.setPrettyPrinter(new DefaultPrettyPrinter());
+            }
+            write(root, generator);
+        }
+    }
+
+    /**
+     * 写入任意格式的 generator, 例如 YAML、CBOR. 不关闭 generator.
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        write(root, generator);
+        generator.flush();
+    }
+
+    private static Object read(JsonParser parser, SpecInterner interner) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                List<String> names = new ArrayList<>();
+                List<Object> values = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_OBJECT) {
+                    names.add(interner.intern(parser.getCurrentName()));
+                    parser.nextToken();
+                    values.add(read(parser, interner));
+                }
+                return interner.intern(new ObjectValue(interner.intern(new Names(names.toArray(new String[0]))), values.toArray()));
+            case START_ARRAY:
+                List<Object> items = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    items.add(read(parser, interner));
+                }
+                return interner.intern(new ArrayValue(items.toArray()));
+            case VALUE_STRING:
+                return interner.intern(parser.getText());
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.getEmbeddedObject();
+            default:
+                return null;
+        }
+    }
+
+    private static void write(Object value, JsonGenerator generator) throws IOException {
+        if (value instanceof ObjectValue) {
+            ObjectValue object = (ObjectValue) value;
+            generator.writeStartObject();
+            for (int i = 0; i < object.values.length; i++) {
+                generator.writeFieldName(object.names.names[i]);
+                write(object.values[i], generator);
+            }
+            generator.writeEndObject();
+        } else if (value instanceof ArrayValue) {
+            generator.writeStartArray();
+            for (Object item : ((ArrayValue) value).items) {
+                write(item, generator);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof byte[]) {
+            generator.writeBinary((byte[]) value);
+        } else if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    /**
+     * 已驻留的子节点与字符串可以按引用比较.
+     */
+    private static boolean same(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || a instanceof Node || a instanceof String) {
+            return false;
+        }
+        return a.getClass() == b.getClass() && (a instanceof byte[] ? Arrays.equals((byte[]) a, (byte[]) b) : a.equals(b));
+    }
+
+    private static int hash(Object[] values) {
+        int hash = 1;
+        for (Object value : values) {
+            hash = 31 * hash + (value == null ? 0 : value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode());
+        }
+        return hash;
+    }
+
+    static final class Names {
+
+        private final String[] names;
+
+        private final int hash;
+
+        Names(String[] names) {
+            this.names = names;
+            this.hash = Arrays.hashCode(names);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Names) || hash != ((Names) o).hash) {
+                return false;
+            }
+            String[] other = ((Names) o).names;
+            if (other.length != names.length) {
+                return false;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] != other[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    abstract static class Node {
+    }
+
+    static final class ObjectValue extends Node {
+
+        private final Names names;
+
+        private final Object[] values;
+
+        private final int hash;
+
+        private ObjectValue(Names names, Object[] values) {
+            this.names = names;
+            this.values = values;
+            this.hash = 31 * names.hashCode() + CompactSpec.hash(values);
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        String name(int index) {
+            return names.names[index];
+        }
+
+        Object value(int index) {
+            return values[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ObjectValue)) {
+                return false;
+            }
+            ObjectValue other = (ObjectValue) o;
+            if (hash != other.hash || names != other.names) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!same(values[i], other.values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class ArrayValue extends Node {
+
+        private final Object[] items;
+
+        private final int hash;
+
+        private ArrayValue(Object[] items) {
+            this.items = items;
+            this.hash = CompactSpec.hash(items);
+        }
+
+        int size() {
+            return items.length;
+        }
+
+        Object get(int index) {
+            return items[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ArrayValue)) {
+                return false;
+            }
+            ArrayValue other = (ArrayValue) o;
+            if (hash != other.hash || items.length != other.items.length) {
+                return false;
+            }
+            for (int i = 0; i < items.length; i++) {
+                if (!same(items[i], other.items[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.wu191287278.maven.swagger.doc.spec;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * {@link CompactSpec} 的驻留表: 字符串、字段名列表以及结构相同的对象与数组只保留一个实例.
+ * <p>
+ * 多个模块引用同一个类型时, 生成的 definition 结构相同, 因此整个 reactor 中只保存一份. 使用弱引用, 文档释放后自动回收.
+ *
+ * @author yu.wu
+ */
+public class SpecInterner {
+
+    private final Interner<Object> interner = Interners.newWeakInterner();
+
+    String intern(String value) {
+        return (String) interner.intern(value);
+    }
+
+    CompactSpec.Names intern(CompactSpec.Names names) {
+        return (CompactSpec.Names) interner.intern(names);
+    }
+
+    CompactSpec.Node intern(CompactSpec.Node node) {
+        return (CompactSpec.Node) interner.intern(node);
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.wu191287278.maven.swagger.doc.spec;
+
+import java.util.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 按 tag(Controller 简单类名)拆分文档. 每个分片是完整可用的文档, 只包含该 tag 的接口以及这些接口可达的 definition,
+ * 接口很多时页面只需要加载当前查看的分片.
+ *
+ * @author yu.wu
+ */
+public final class TagShards {
+
+    public static final String DEFAULT_TAG = "default";
+
+    private static final String DEFINITION_PREFIX = "#/definitions/";
+
+    private TagShards() {
+    }
+
+    /**
+     * @param spec 整个模块的文档
+     * @return tag - 分片, 按文档中 tag 的顺序, 没有 tag 的接口归入 {@link #DEFAULT_TAG}
+     */
+    public static Map<String, ObjectNode> split(ObjectNode spec) {
+        Map<String, ObjectNode> paths = new LinkedHashMap<>();
+        JsonNode tags = spec.path("tags");
+        for (JsonNode tag : tags) {
+            paths.put(tag.path("name").asText(), JsonNodeFactory.instance.objectNode());
+        }
+        Iterator<Map.Entry<String, JsonNode>> pathIterator = spec.path("paths").fields();
+        while (pathIterator.hasNext()) {
+            Map.Entry<String, JsonNode> path = pathIterator.next();
+            Iterator<Map.Entry<String, JsonNode>> operations = path.getValue().fields();
+            while (operations.hasNext()) {
+                Map.Entry<String, JsonNode> operation = operations.next();
+                JsonNode operationTags = operation.getValue().path("tags");
+                String tag = operationTags.size() > 0 ? operationTags.get(0).asText() : DEFAULT_TAG;
+                ObjectNode tagPaths = paths.computeIfAbsent(tag, k -> JsonNodeFactory.instance.objectNode());
+                ObjectNode pathItem = tagPaths.has(path.getKey()) ? (ObjectNode) tagPaths.get(path.getKey()) : tagPaths.putObject(path.getKey());
+                pathItem.set(operation.getKey(), operation.getValue());
+            }
+        }
+
+        JsonNode definitions = spec.path("definitions");
+        Map<String, ObjectNode> shards = new LinkedHashMap<>();
+        for (Map.Entry<String, ObjectNode> entry : paths.entrySet()) {
+            if (entry.getValue().size() == 0) {
+                continue;
+            }
+            ObjectNode shard = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = spec.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                switch (field.getKey()) {
+                    case "tags":
+                        ArrayNode shardTags = shard.putArray("tags");
+                        for (JsonNode tag : tags) {
+                            if (entry.getKey().equals(tag.path("name").asText())) {
+                                shardTags.add(tag);
+                            }
+                        }
+                        break;
+                    case "paths":
+                        shard.set("paths", entry.getValue());
+                        break;
+                    case "definitions":
+                        Set<String> reachable = reachableDefinitions(entry.getValue(), definitions);
+                        if (!reachable.isEmpty()) {
+                            ObjectNode shardDefinitions = shard.putObject("definitions");
+                            Iterator<Map.Entry<String, JsonNode>> iterator = definitions.fields();
+                            while (iterator.hasNext()) {
+                                Map.Entry<String, JsonNode> definition = iterator.next();
+                                if (reachable.contains(definition.getKey())) {
+                                    shardDefinitions.set(definition.getKey(), definition.getValue());
+                                }
+                            }
+                        }
+                        break;
+                    default:
+                        shard.set(field.getKey(), field.getValue());
+                }
+            }
+            shards.put(entry.getKey(), shard);
+        }
+        return shards;
+    }
+
+    /**
+     * 分片文件名中 tag 的部分, 只保留字母、数字、点、下划线与横线.
+     */
+    public static String fileName(String tag) {
+        return tag.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static Set<String> reachableDefinitions(JsonNode paths, JsonNode definitions) {
+        Set<String> reachable = new HashSet<>();
+        Deque<JsonNode> pending = new ArrayDeque<>();
+        pending.push(paths);
+        while (!pending.isEmpty()) {
+            JsonNode node = pending.pop();
+            if (node.isObject()) {
+                JsonNode ref = node.get("$ref");
+                if (ref != null && ref.isTextual() && ref.asText().startsWith(DEFINITION_PREFIX)) {
+                    String name = ref.asText().substring(DEFINITION_PREFIX.length());
+                    JsonNode definition = definitions.get(name);
+                    if (definition != null && reachable.add(name)) {
+                        pending.push(definition);
+                    }
+                }
+            }
+            if (node.isContainerNode()) {
+                for (JsonNode child : node) {
+                    pending.push(child);
+                }
+            }
+        }
+        return reachable;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.wu191287278.maven.swagger.doc.visitor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 不需要出现在文档中的字段与类型, 例如 JPA 反向引用、Hibernate 代理以及框架内部类型. 命中的字段与类型不会被解析,
+ * 其引用的整个对象图也随之跳过.
+ * <p>
+ * 规则逗号分隔:
+ * <ul>
+ * <li>@JsonIgnore: 字段上的注解, 按简单类名比较, 写成全限定名时同样只比较简单类名</li>
+ * <li>org.hibernate: 类型全名或包名前缀, 匹配该类型、该包及其子包中的类型(包括嵌套类)</li>
+ * <li>*Proxy, org.hibernate.*.internal.*: 类型全名的通配, * 匹配任意字符(包括点)</li>
+ * </ul>
+ * 每个类型名只匹配一次, 结果缓存在规则中.
+ *
+ * @author yu.wu
+ */
+public final class ExclusionRules {
+
+    public static final ExclusionRules NONE = compile("");
+
+    private final Set<String> annotations = new HashSet<>();
+
+    private final Set<String> types = new HashSet<>();
+
+    private final Pattern patterns;
+
+    private final Map<String, Boolean> matches = new ConcurrentHashMap<>();
+
+    private ExclusionRules(String rules) {
+        List<String> globs = new ArrayList<>();
+        for (String rule : rules.split(",")) {
+            rule = rule.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            if (rule.startsWith("@")) {
+                annotations.add(simpleName(rule.substring(1)));
+            } else if (rule.indexOf('*') >= 0) {
+                globs.add(toRegex(rule));
+            } else {
+                types.add(rule.endsWith(".") ? rule.substring(0, rule.length() - 1) : rule);
+            }
+        }
+        patterns = globs.isEmpty() ? null : Pattern.compile(String.join("|", globs));
+    }
+
+    public static ExclusionRules compile(String rules) {
+        return new ExclusionRules(rules == null ? "" : rules);
+    }
+
+    public boolean isEmpty() {
+        return annotations.isEmpty() && types.isEmpty() && patterns == null;
+    }
+
+    /**
+     * @param annotation 源码或 class 文件中的注解名, 简单类名或全限定名
+     */
+    public boolean excludesAnnotation(String annotation) {
+        return !annotations.isEmpty() && annotations.contains(simpleName(annotation));
+    }
+
+    /**
+     * @param qualifiedName 类型全名, 嵌套类以 '.' 分隔
+     */
+    public boolean excludesType(String qualifiedName) {
+        if (types.isEmpty() && patterns == null) {
+            return false;
+        }
+        Boolean excluded = matches.get(qualifiedName);
+        if (excluded == null) {
+            excluded = match(qualifiedName);
+            matches.put(qualifiedName, excluded);
+        }
+        return excluded;
+    }
+
+    /**
+     * 依次查找类型名本身以及每一级前缀, 查找次数为类型名的段数.
+     */
+    private boolean match(String qualifiedName) {
+        for (int end = qualifiedName.length(); end > 0; end = qualifiedName.lastIndexOf('.', end - 1)) {
+            if (types.contains(qualifiedName.substring(0, end))) {
+                return true;
+            }
+        }
+        return patterns != null && patterns.matcher(qualifiedName).matches();
+    }
+
+    private static String simpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String toRegex(String glob) {
+        String[] parts = glob.split("\\*", -1);
+        StringBuilder regex = new StringBuilder("(?:").append(Pattern.quote(parts[0]));
+        for (int i = 1; i < parts.length; i++) {
+            regex.append(".*").append(Pattern.quote(parts[i]));
+        }
+        return regex.append(')').toString();
+    }
+}
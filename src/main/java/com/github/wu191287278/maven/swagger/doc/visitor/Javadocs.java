@@ -0,0 +1,59 @@
+package com.github.wu191287278.maven.swagger.doc.visitor;
+
+import java.util.Optional;
+
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.nodeTypes.NodeWithJavadoc;
+import com.github.javaparser.javadoc.Javadoc;
+
+/**
+ * Javadoc 的解析结果保存在注释节点上, 每个节点最多解析一次, 描述在首次使用时才生成.
+ * <p>
+ * 同一类型可能被多个模块并发解析, 读写节点数据时以注释节点加锁.
+ *
+ * @author yu.wu
+ */
+final class Javadocs {
+
+    private static final DataKey<Javadoc> JAVADOC = new DataKey<Javadoc>() {
+    };
+
+    private static final DataKey<String> DESCRIPTION = new DataKey<String>() {
+    };
+
+    private Javadocs() {
+    }
+
+    static Optional<Javadoc> parse(NodeWithJavadoc<?> node) {
+        return node.getJavadocComment().map(Javadocs::parse);
+    }
+
+    static Javadoc parse(JavadocComment comment) {
+        synchronized (comment) {
+            if (comment.containsData(JAVADOC)) {
+                return comment.getData(JAVADOC);
+            }
+            Javadoc javadoc = comment.parse();
+            comment.setData(JAVADOC, javadoc);
+            return javadoc;
+        }
+    }
+
+    /**
+     * Javadoc 的描述部分, 不含 block tag.
+     */
+    static Optional<String> description(NodeWithJavadoc<?> node) {
+        return node.getJavadocComment().map(comment -> {
+            Javadoc javadoc = parse(comment);
+            synchronized (comment) {
+                if (comment.containsData(DESCRIPTION)) {
+                    return comment.getData(DESCRIPTION);
+                }
+                String description = javadoc.getDescription().toText();
+                comment.setData(DESCRIPTION, description);
+                return description;
+            }
+        });
+    }
+}
@@ -8,7 +8,6 @@ import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
-import com.github.javaparser.ast.comments.JavadocComment;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
@@ -16,7 +15,8 @@ import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.javadoc.Javadoc;
 import com.github.javaparser.javadoc.JavadocBlockTag;
-import com.github.javaparser.javadoc.description.JavadocDescription;
+import com.github.wu191287278.maven.swagger.doc.GenerationContext;
+import com.github.wu191287278.maven.swagger.doc.concurrent.Watchdog;
 import com.github.wu191287278.maven.swagger.doc.domain.Request;
 import io.swagger.models.*;
 import io.swagger.models.parameters.*;
@@ -27,7 +27,9 @@ import org.apache.commons.lang3.math.NumberUtils;
 
 public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
 
-    private ResolveSwaggerType resolveSwaggerType = new ResolveSwaggerType();
+    private final GenerationContext context;
+
+    private final ResolveSwaggerType resolveSwaggerType;
 
     private final Set<String> controllers = new HashSet<>(Arrays.asList("Path"));
 
@@ -38,6 +40,12 @@ public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
     private final Map<String, String> methods = new HashMap<>();
 
     public JavaxRsVisitorAdapter() {
+        this(new GenerationContext());
+    }
+
+    public JavaxRsVisitorAdapter(GenerationContext context) {
+        this.context = context;
+        this.resolveSwaggerType = new ResolveSwaggerType(context);
         methods.put("GET", "get");
         methods.put("POST", "post");
         methods.put("DELETE", "delete");
@@ -55,9 +63,22 @@ public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
                 .filter(a -> mappings.contains(a.getNameAsString()))
                 .collect(Collectors.toList());
 
-        if (annotationExprs.isEmpty()) return;
-
+        if (annotationExprs.isEmpty() || resolveSwaggerType.getWatchdog().isExpired()) return;
+
+        long start = System.nanoTime();
+        resolveSwaggerType.startEndpoint();
+        try {
+            visitEndpoint(n, swagger);
+        } finally {
+            String controller = n.getParentNode()
+                    .filter(p -> p instanceof ClassOrInterfaceDeclaration)
+                    .map(p -> ((ClassOrInterfaceDeclaration) p).getNameAsString())
+                    .orElse("");
+            context.getCostReport().recordEndpoint(controller, n.getNameAsString(), System.nanoTime() - start);
+        }
+    }
 
+    private void visitEndpoint(MethodDeclaration n, Swagger swagger) {
         Request request = new Request();
         Map<String, Path> paths = swagger.getPaths();
         parse((ClassOrInterfaceDeclaration) n.getParentNode().get(), n, request);
@@ -121,7 +142,7 @@ public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
         Tag tag = new Tag()
                 .name(n.getNameAsString());
         swagger.addTag(tag);
-        n.getJavadoc().ifPresent(c -> tag.description(StringUtils.isBlank(c.getDescription().toText()) ? null : c.getDescription().toText()));
+        Javadocs.description(n).ifPresent(description -> tag.description(StringUtils.isBlank(description) ? null : description));
         super.visit(n, swagger);
 
     }
@@ -179,7 +200,8 @@ public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
             String variableName = parameter.getNameAsString();
             Map<String, String> paramsDescription = request.getParamsDescription();
             String description = paramsDescription.get(variableName);
-            Property property = resolveSwaggerType.resolve(parameter.getType());
+            // 注解与 javadoc 会修改参数的属性, 先取得共享实例的副本
+            Property property = context.getPropertyPool().mutable(resolveSwaggerType.resolve(parameter.getType()));
             Property paramProperty = property instanceof ObjectProperty ? new StringProperty()
                     .description(property.getDescription()) : property;
             io.swagger.models.parameters.Parameter param = new QueryParameter()
@@ -483,10 +505,8 @@ public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
     private void parseMethodComment(MethodDeclaration n, Request request) {
         n.getJavadocComment().ifPresent(c -> {
             if (c.isJavadocComment()) {
-                JavadocComment javadocComment = c.asJavadocComment();
-                Javadoc parse = javadocComment.parse();
-                JavadocDescription description = parse.getDescription();
-                request.setSummary(description.toText());
+                Javadoc parse = Javadocs.parse(c.asJavadocComment());
+                request.setSummary(Javadocs.description(n).orElse(""));
                 for (JavadocBlockTag blockTag : parse.getBlockTags()) {
                     switch (blockTag.getTagName().toLowerCase()) {
                         case "throws":
@@ -534,8 +554,32 @@ public class JavaxRsVisitorAdapter extends VoidVisitorAdapter<Swagger> {
         }
     }
 
+    /**
+     * 超时后不再访问剩余接口.
+     */
+    public JavaxRsVisitorAdapter setWatchdog(Watchdog watchdog) {
+        resolveSwaggerType.setWatchdog(watchdog);
+        return this;
+    }
+
+    public JavaxRsVisitorAdapter setResolutionBudget(ResolutionBudget budget) {
+        resolveSwaggerType.setResolutionBudget(budget);
+        return this;
+    }
+
     public Map<String, Model> getModelMap() {
         return resolveSwaggerType.getModelMap();
     }
 
+    public int getDefinedCount() {
+        return resolveSwaggerType.getDefinedCount();
+    }
+
+    /**
+     * 最先定义的 count 个模型, 见 {@link ResolveSwaggerType#getModelMap(int)}.
+     */
+    public Map<String, Model> getModelMap(int count) {
+        return resolveSwaggerType.getModelMap(count);
+    }
+
 }
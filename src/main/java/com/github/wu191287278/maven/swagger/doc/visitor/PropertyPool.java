@@ -0,0 +1,79 @@
+package com.github.wu191287278.maven.swagger.doc.visitor;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.Property;
+
+/**
+ * 基础类型与空对象属性的共享实例, 同一上下文中同类的字段引用同一个对象.
+ * <p>
+ * 共享实例不可修改, 需要设置 description、example、required 等属性时先调用 {@link #mutable(Property)} 取得副本.
+ * 每次生成结束时由 {@link #checkUnmodified()} 检查, 漏掉副本的调用方直接导致生成失败, 不会输出错误的文档.
+ *
+ * @author yu.wu
+ */
+public class PropertyPool {
+
+    private final Map<String, Property> properties = new ConcurrentHashMap<>();
+
+    private final Map<Property, Supplier<? extends Property>> factories = new IdentityHashMap<>();
+
+    /**
+     * @param key     区分不同属性的键, 例如类型与格式
+     * @param factory 创建属性, 同时用于创建副本
+     */
+    public Property get(String key, Supplier<? extends Property> factory) {
+        Property property = properties.get(key);
+        if (property != null) {
+            return property;
+        }
+        synchronized (factories) {
+            property = properties.get(key);
+            if (property == null) {
+                property = factory.get();
+                factories.put(property, factory);
+                properties.put(key, property);
+            }
+            return property;
+        }
+    }
+
+    /**
+     * 共享实例返回新的副本, 其他属性原样返回.
+     */
+    public Property mutable(Property property) {
+        Supplier<? extends Property> factory;
+        synchronized (factories) {
+            factory = factories.get(property);
+        }
+        return factory == null ? property : factory.get();
+    }
+
+    /**
+     * 共享实例与新创建的实例不同时说明被修改过, 修改会出现在所有引用它的字段中.
+     *
+     * @throws IllegalStateException 存在被修改的共享实例
+     */
+    public void checkUnmodified() {
+        synchronized (factories) {
+            for (Map.Entry<String, Property> entry : properties.entrySet()) {
+                Property property = entry.getValue();
+                Property created = factories.get(property).get();
+                // ObjectProperty#equals 不比较 properties
+                if (!property.equals(created) || property instanceof ObjectProperty
+                        && !Objects.equals(((ObjectProperty) property).getProperties(), ((ObjectProperty) created).getProperties())) {
+                    throw new IllegalStateException("Shared property '" + entry.getKey() + "' was modified, copy it with PropertyPool#mutable before setting attributes");
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return properties.size();
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.wu191287278.maven.swagger.doc.visitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模型展开的预算: 嵌套深度、单个接口展开的类型数以及单个模块展开的类型总数, 0 表示不限制.
+ * <p>
+ * 只计入实际展开(未命中已解析类型缓存)的模型类型, 枚举与集合不计入. 超出预算的类型以占位 definition 代替,
+ * 包含占位的类型不会写入缓存, 其他接口仍可在预算内完整展开.
+ * <p>
+ * 每个模块由 {@link #forModule()} 单独计数, 设置了预算时展开结果只在模块内缓存, 不与其他模块共享,
+ * 因此截断哪些类型只取决于模块自身的源码, 与模块的访问顺序无关.
+ *
+ * @author yu.wu
+ */
+public class ResolutionBudget {
+
+    public static final String TRUNCATED_EXTENSION = "x-truncated";
+
+    private int maxDepth;
+
+    private int maxEndpointTypes;
+
+    private int maxTypes;
+
+    private final AtomicInteger types = new AtomicInteger();
+
+    private final AtomicInteger truncated;
+
+    private final ResolvedTypeCache typeCache = new ResolvedTypeCache();
+
+    public ResolutionBudget() {
+        this.truncated = new AtomicInteger();
+    }
+
+    private ResolutionBudget(ResolutionBudget generation) {
+        this.maxDepth = generation.maxDepth;
+        this.maxEndpointTypes = generation.maxEndpointTypes;
+        this.maxTypes = generation.maxTypes;
+        this.truncated = generation.truncated;
+    }
+
+    /**
+     * 单个模块的预算: 限制相同, 类型总数重新计数, 截断次数计入本次生成.
+     */
+    public ResolutionBudget forModule() {
+        return new ResolutionBudget(this);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public ResolutionBudget setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public int getMaxEndpointTypes() {
+        return maxEndpointTypes;
+    }
+
+    public ResolutionBudget setMaxEndpointTypes(int maxEndpointTypes) {
+        this.maxEndpointTypes = maxEndpointTypes;
+        return this;
+    }
+
+    public int getMaxTypes() {
+        return maxTypes;
+    }
+
+    public ResolutionBudget setMaxTypes(int maxTypes) {
+        this.maxTypes = maxTypes;
+        return this;
+    }
+
+    public boolean isUnlimited() {
+        return maxDepth <= 0 && maxEndpointTypes <= 0 && maxTypes <= 0;
+    }
+
+    /**
+     * 展开一个类型前调用.
+     *
+     * @param depth         展开后的嵌套深度
+     * @param endpointTypes 展开后当前接口已展开的类型数
+     * @return 超出的预算, 未超出时返回 null 并计入总数
+     */
+    String expand(int depth, int endpointTypes) {
+        String limit = null;
+        if (maxDepth > 0 && depth > maxDepth) {
+            limit = "maxResolveDepth=" + maxDepth;
+        } else if (maxEndpointTypes > 0 && endpointTypes > maxEndpointTypes) {
+            limit = "maxEndpointTypes=" + maxEndpointTypes;
+        } else if (maxTypes > 0 && types.incrementAndGet() > maxTypes) {
+            limit = "maxTypes=" + maxTypes;
+        }
+        if (limit != null) {
+            truncated.incrementAndGet();
+        }
+        return limit;
+    }
+
+    /**
+     * 预算内的展开结果, 只在同一模块内复用.
+     */
+    ResolvedTypeCache getTypeCache() {
+        return typeCache;
+    }
+
+    /**
+     * 本次生成因预算而截断的次数.
+     */
+    public int getTruncated() {
+        return truncated.get();
+    }
+
+    /**
+     * 每次生成开始时重置计数.
+     */
+    public void reset() {
+        types.set(0);
+        truncated.set(0);
+    }
+}
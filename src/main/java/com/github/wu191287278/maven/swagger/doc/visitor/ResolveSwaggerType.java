@@ -2,15 +2,23 @@ package com.github.wu191287278.maven.swagger.doc.visitor;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.nodeTypes.NodeWithName;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
-import com.github.javaparser.javadoc.Javadoc;
-import com.github.javaparser.javadoc.description.JavadocDescription;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.ResolvedEnumConstantDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedFieldDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
@@ -29,8 +37,13 @@ import com.github.javaparser.symbolsolver.model.typesystem.ReferenceTypeImpl;
 import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionFieldDeclaration;
 import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionInterfaceDeclaration;
 import com.github.javaparser.utils.Pair;
-import com.github.wu191287278.maven.swagger.doc.dependency.DependencyGraph;
-import com.google.protobuf.AbstractMessage;
+import com.github.wu191287278.maven.swagger.doc.GenerationContext;
+import com.github.wu191287278.maven.swagger.doc.bytecode.ClassHierarchy;
+import com.github.wu191287278.maven.swagger.doc.concurrent.Watchdog;
+import com.github.wu191287278.maven.swagger.doc.jfr.Events;
+import com.github.wu191287278.maven.swagger.doc.jfr.Span;
+import com.github.wu191287278.maven.swagger.doc.protobuf.ProtobufDescriptorIndex;
+import com.github.wu191287278.maven.swagger.doc.protobuf.ProtobufModelCache;
 import com.google.protobuf.Descriptors;
 import io.swagger.models.ArrayModel;
 import io.swagger.models.Model;
@@ -38,6 +51,8 @@ import io.swagger.models.ModelImpl;
 import io.swagger.models.RefModel;
 import io.swagger.models.properties.*;
 import javassist.CtField;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.SignatureAttribute;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,30 +73,211 @@ public class ResolveSwaggerType {
 
     private final Map<String, Property> propertyMap = new ConcurrentHashMap<>();
 
-    private final Map<String, Property> referencePropertyMap = new HashMap<>();
-    public final DependencyGraph dependencyGraph = new DependencyGraph();
+    /**
+     * 按定义顺序记录的模型, 用于取得某一时刻之前定义的模型
+     */
+    private final List<Map.Entry<String, Property>> definitions = Collections.synchronizedList(new ArrayList<>());
 
-    public static String TIME_FORMAT = "13:11:43";
+    private final GenerationContext context;
 
-    public static String DATE_FORMAT = "2018-09-10";
+    private ResolvedTypeCache typeCache;
 
-    public static String DATETIME_FORMAT = "2018-09-10T13:11:43Z";
+    private static final DataKey<String> IMPORT_CONTEXT = new DataKey<String>() {
+    };
 
-    public static Boolean RECURSION_ANCESTOR = false;
+    private final UnresolvedSymbolCache unresolvedSymbols;
+
+    private final ProtobufModelCache protobufModels;
+
+    /**
+     * 正在展开的类型, 栈顶为最内层. 以 ResolvedType#describe() 为键再次遇到时引用正在展开的对象, 递归模型不会重复展开
+     */
+    private final Deque<Expansion> expanding = new ArrayDeque<>();
+
+    private final Map<String, Expansion> expandingTypes = new HashMap<>();
+
+    /**
+     * 引用了外层未完成类型而不能写入缓存的结果, 在该外层类型完成前复用
+     */
+    private final Map<String, Expansion> deferred = new HashMap<>();
+
+    private int depth;
+
+    private final PropertyPool propertyPool;
+
+    private final ClassHierarchy classHierarchy;
+
+    private final ExclusionRules exclusionRules;
+
+    private ResolutionBudget budget;
+
+    /**
+     * 计入预算的模型嵌套深度, 以及当前接口已展开的模型类型数
+     */
+    private int budgetDepth;
+
+    private int endpointTypes;
+
+    private Watchdog watchdog = Watchdog.NONE;
+
+    /**
+     * 字段上这些注解以及 Javadoc 会修改字段的属性, 此时共享属性需要先复制.
+     */
+    private static final Set<String> DECORATING_ANNOTATIONS = new HashSet<>(Arrays.asList("NotNull", "NotEmpty", "NotBlank",
+            "JsonProperty", "URL", "Email", "Pattern", "Size", "DecimalMin", "DecimalMax"));
+
+    private int maxDepth;
+
+    public ResolveSwaggerType() {
+        this(new GenerationContext());
+    }
+
+    public ResolveSwaggerType(GenerationContext context) {
+        this.context = context;
+        this.unresolvedSymbols = context.getUnresolvedSymbols();
+        this.protobufModels = context.getProtobufModels();
+        this.propertyPool = context.getPropertyPool();
+        this.classHierarchy = context.getClassHierarchy();
+        this.exclusionRules = context.getExclusionRules();
+        setResolutionBudget(context.getResolutionBudget().forModule());
+    }
+
+    /**
+     * 同一模块的解析共用一份预算. 设置了预算时不使用跨模块共享的已解析类型缓存.
+     */
+    public ResolveSwaggerType setResolutionBudget(ResolutionBudget budget) {
+        this.budget = budget;
+        this.typeCache = budget.isUnlimited() ? context.getTypeCache() : budget.getTypeCache();
+        return this;
+    }
+
+    /**
+     * 开始解析一个接口, 重新计算单个接口的类型预算.
+     */
+    public void startEndpoint() {
+        endpointTypes = 0;
+    }
+
+    public ResolveSwaggerType setWatchdog(Watchdog watchdog) {
+        this.watchdog = watchdog;
+        return this;
+    }
+
+    public Watchdog getWatchdog() {
+        return watchdog;
+    }
 
     public Property resolve(Type type) {
+        String symbol = type.asString();
+        String key = symbol + "@" + importContext(type);
+        if (watchdog.isExpired()) {
+            return emptyObject();
+        }
+        if (unresolvedSymbols.contains(key)) {
+            context.getCostReport().recordFailure(symbol);
+            return emptyObject();
+        }
+        Descriptors.Descriptor descriptor = findIndexedDescriptor(type);
+        if (descriptor != null) {
+            return resolveGrpcType(descriptor);
+        }
+        ResolvedType resolvedType;
         try {
-            return resolve(type.resolve());
+            resolvedType = type.resolve();
         } catch (Exception e) {
+            unresolvedSymbols.add(key);
+            recordFailure(e, symbol);
             log.error(e.getMessage());
+            return emptyObject();
+        }
+        try {
+            return resolve(resolvedType);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+        return emptyObject();
+    }
+
+    /**
+     * 按源码中的类名与 import 在 descriptor set 索引中查找消息, 命中时无需经过 symbol solver, 也不加载消息类.
+     */
+    private Descriptors.Descriptor findIndexedDescriptor(Type type) {
+        ProtobufDescriptorIndex index = protobufModels.getDescriptorIndex();
+        if (index.isEmpty() || !type.isClassOrInterfaceType() || type.asClassOrInterfaceType().getTypeArguments().isPresent()) {
+            return null;
+        }
+        String name = type.asString();
+        Descriptors.Descriptor descriptor = index.get(name);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        Optional<CompilationUnit> compilationUnit = type.findCompilationUnit();
+        if (!compilationUnit.isPresent()) {
+            return null;
+        }
+        CompilationUnit cu = compilationUnit.get();
+        int dot = name.indexOf('.');
+        String first = dot < 0 ? name : name.substring(0, dot);
+        for (ImportDeclaration importDeclaration : cu.getImports()) {
+            if (importDeclaration.isStatic()) {
+                continue;
+            }
+            String importName = importDeclaration.getNameAsString();
+            if (importDeclaration.isAsterisk()) {
+                descriptor = index.get(importName + "." + name);
+            } else if (importName.equals(first) || importName.endsWith("." + first)) {
+                descriptor = index.get(importName + name.substring(first.length()));
+            }
+            if (descriptor != null) {
+                return descriptor;
+            }
+        }
+        String packageName = cu.getPackageDeclaration().map(NodeWithName::getNameAsString).orElse("");
+        return packageName.isEmpty() ? null : index.get(packageName + "." + name);
+    }
+
+    /**
+     * 简单类名的解析结果只取决于所在包与 import, 计算一次后保存在编译单元上.
+     */
+    private static String importContext(Node node) {
+        Optional<CompilationUnit> compilationUnit = node.findCompilationUnit();
+        if (!compilationUnit.isPresent()) {
+            return "";
+        }
+        CompilationUnit cu = compilationUnit.get();
+        if (cu.containsData(IMPORT_CONTEXT)) {
+            return cu.getData(IMPORT_CONTEXT);
+        }
+        StringBuilder sb = new StringBuilder(cu.getPackageDeclaration().map(NodeWithName::getNameAsString).orElse(""));
+        for (ImportDeclaration importDeclaration : cu.getImports()) {
+            sb.append(';').append(importDeclaration.isStatic() ? "static " : "")
+                    .append(importDeclaration.getNameAsString())
+                    .append(importDeclaration.isAsterisk() ? ".*" : "");
         }
-        return new ObjectProperty(new LinkedHashMap<>());
+        String importContext = sb.toString();
+        cu.setData(IMPORT_CONTEXT, importContext);
+        return importContext;
+    }
+
+    /**
+     * 类能否加载, 由 class 文件判断而不加载类. 无法加载的类只记录一次.
+     */
+    private boolean classExists(String className) {
+        String key = "class:" + className;
+        if (!unresolvedSymbols.contains(key) && classHierarchy.exists(className)) {
+            return true;
+        }
+        if (unresolvedSymbols.add(key)) {
+            log.error(className);
+        }
+        context.getCostReport().recordFailure(className);
+        return false;
     }
 
     private Property resolve(ResolvedType resolvedType) {
         String clazzName = resolvedType.describe();
         if ("java.lang.Object".equals(clazzName)) {
-            return new ObjectProperty();
+            return propertyPool.get("java.lang.Object", ObjectProperty::new);
         }
 
         if (resolvedType instanceof ReferenceTypeImpl) {
@@ -95,7 +291,14 @@ public class ResolveSwaggerType {
 
 
         if (resolvedType.isReferenceType()) {
-            return resolveRefProperty(resolvedType.asReferenceType());
+            if (exclusionRules.excludesType(resolvedType.asReferenceType().getQualifiedName())) {
+                return emptyObject();
+            }
+            Descriptors.Descriptor descriptor = protobufModels.getDescriptor(resolvedType.asReferenceType().getQualifiedName(), context.getClassLoader());
+            if (descriptor != null) {
+                return resolveGrpcType(descriptor);
+            }
+            return resolveCachedRefProperty(resolvedType.asReferenceType());
         }
 
 
@@ -108,37 +311,399 @@ public class ResolveSwaggerType {
         }
 
 
-        return new ObjectProperty(new LinkedHashMap<>());
+        return emptyObject();
+    }
+
+    private Property resolveCachedRefProperty(ResolvedReferenceType resolvedReferenceType) {
+        String key = resolvedReferenceType.describe();
+        ResolvedTypeCache.Entry entry = typeCache.get(key);
+        if (entry != null) {
+            for (Map.Entry<String, Property> definition : entry.getDefinitions().entrySet()) {
+                define(definition.getKey(), definition.getValue());
+            }
+            ObjectProperty property = entry.getProperty();
+            define(property.getName(), property);
+            return property;
+        }
+
+        if (watchdog.isExpired()) {
+            // 当前源文件已超时, 不再展开, 结果不完整因此不写入缓存
+            expanding.forEach(Expansion::truncate);
+            return emptyObject();
+        }
+        Expansion recursive = expandingTypes.get(key);
+        if (recursive != null) {
+            return referTo(recursive, new RecursiveRefProperty(recursive.property));
+        }
+        Expansion reusable = deferred.get(key);
+        if (reusable != null) {
+            return referTo(reusable.blocker, ResolvedTypeCache.copy(reusable.property));
+        }
+        boolean budgeted = !budget.isUnlimited() && isModel(resolvedReferenceType);
+        if (budgeted) {
+            String limit = budget.expand(budgetDepth + 1, endpointTypes + 1);
+            if (limit != null) {
+                return truncate(resolvedReferenceType, limit);
+            }
+            budgetDepth++;
+            endpointTypes++;
+        }
+        Expansion expansion = new Expansion(new ObjectProperty(new LinkedHashMap<>()), expanding.size());
+        expanding.push(expansion);
+        expandingTypes.put(key, expansion);
+        Property property;
+        try {
+            property = resolveRefProperty(resolvedReferenceType, expansion.property);
+        } finally {
+            expanding.pop();
+            expandingTypes.remove(key);
+            deferred.keySet().removeAll(expansion.dependents);
+            if (budgeted) {
+                budgetDepth--;
+            }
+        }
+        ResolvedTypeCache.Capture capture = expansion.capture;
+        boolean named = property instanceof ObjectProperty && property.getName() != null;
+        if (!capture.isTruncated() && named) {
+            capture.definitions().remove(property.getName());
+            typeCache.put(key, (ObjectProperty) property, capture);
+        } else if (expansion.blocker != null && named) {
+            expansion.blocker.dependents.add(key);
+            deferred.put(key, new Expansion((ObjectProperty) property, expansion.blocker));
+        }
+        return property;
+    }
+
+    /**
+     * 引用 owner 展开期间产生的结果: 比 owner 更内层的类型都依赖尚未完成的 owner, 结果不完整, 不写入缓存.
+     */
+    private Property referTo(Expansion owner, Property property) {
+        for (Expansion expansion : expanding) {
+            if (expansion == owner) {
+                break;
+            }
+            expansion.truncate();
+            if (expansion.blocker == null || owner.level < expansion.blocker.level) {
+                expansion.blocker = owner;
+            }
+        }
+        return property;
+    }
+
+    /**
+     * 枚举与集合不计入预算.
+     */
+    private boolean isModel(ResolvedReferenceType resolvedReferenceType) {
+        if (resolvedReferenceType.getTypeDeclaration().isEnum()) {
+            return false;
+        }
+        String qualifiedName = resolvedReferenceType.getQualifiedName();
+        return !classHierarchy.isSubtypeOf(qualifiedName, Collection.class.getName())
+                && !classHierarchy.isSubtypeOf(qualifiedName, Map.class.getName());
+    }
+
+    /**
+     * 超出预算时以占位 definition 代替, 已有同名 definition 时直接引用. 占位带有 x-truncated 扩展, 值为超出的预算.
+     */
+    private Property truncate(ResolvedReferenceType resolvedReferenceType, String limit) {
+        String name = resolvedReferenceType.getTypeDeclaration().getName();
+        List<String> typeNames = new ArrayList<>();
+        for (Pair<ResolvedTypeParameterDeclaration, ResolvedType> typeParameter : resolvedReferenceType.getTypeParametersMap()) {
+            ResolvedType type = typeParameter.b;
+            if (type.isReferenceType() && resolveBaseType(type.asReferenceType().getQualifiedName()) == null
+                    && isModel(type.asReferenceType())) {
+                typeNames.add(type.asReferenceType().getTypeDeclaration().getName());
+            }
+        }
+        if (!typeNames.isEmpty()) {
+            name = name + "«" + String.join(",", typeNames) + "»";
+        }
+        Property existing = propertyMap.get(name);
+        if (existing != null) {
+            if (existing.getVendorExtensions() != null && existing.getVendorExtensions().containsKey(ResolutionBudget.TRUNCATED_EXTENSION)) {
+                expanding.forEach(Expansion::truncate);
+            }
+            define(name, existing);
+            return existing;
+        }
+        expanding.forEach(Expansion::truncate);
+        context.getCostReport().recordTruncation(resolvedReferenceType.describe(), limit);
+        ObjectProperty placeholder = new ObjectProperty(new LinkedHashMap<>());
+        placeholder.name(name);
+        placeholder.description("Truncated, " + limit + " exceeded");
+        placeholder.setVendorExtension(ResolutionBudget.TRUNCATED_EXTENSION, limit);
+        define(name, placeholder);
+        return placeholder;
+    }
+
+    private void define(String name, Property property) {
+        if (propertyMap.put(name, property) != property) {
+            definitions.add(new AbstractMap.SimpleImmutableEntry<>(name, property));
+        }
+        for (Expansion expansion : expanding) {
+            expansion.capture.define(name, property);
+        }
+    }
+
+    private Property resolveRefProperty(ResolvedReferenceType resolvedReferenceType, ObjectProperty objectProperty) {
+        depth++;
+        int outerMaxDepth = maxDepth;
+        maxDepth = depth;
+        long start = System.nanoTime();
+        Property property = null;
+        try (Span ignored = Events.resolve(resolvedReferenceType::describe, depth)) {
+            property = doResolveRefProperty(resolvedReferenceType, objectProperty);
+            return property;
+        } finally {
+            int width = property instanceof ObjectProperty && ((ObjectProperty) property).getProperties() != null
+                    ? ((ObjectProperty) property).getProperties().size() : 0;
+            context.getCostReport().recordType(resolvedReferenceType.getQualifiedName(), System.nanoTime() - start,
+                    maxDepth - depth + 1, width);
+            maxDepth = Math.max(outerMaxDepth, maxDepth);
+            depth--;
+        }
+    }
+
+    /**
+     * 父类经已解析类型缓存解析, 缓存中的属性已包含父类自身的全部祖先属性, 因此每个父类只解析一次,
+     * 所有子类复用同一份展开后的属性.
+     */
+    private static void inherit(ObjectProperty objectProperty, Property ancestor) {
+        if (ancestor instanceof ObjectProperty) {
+            Map<String, Property> properties = ((ObjectProperty) ancestor).getProperties();
+            if (properties != null) {
+                for (Map.Entry<String, Property> entry : properties.entrySet()) {
+                    objectProperty.property(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 字段带有排除的注解, 或字段类型(包括泛型参数与数组元素)是排除的类型.
+     * 源码中的字段按类型名与 import 匹配, class 文件中的字段按描述符与泛型签名匹配, 都不解析字段类型;
+     * 只有源码中的类型名可能对应多个类型且其中一部分被排除时才解析字段类型.
+     */
+    private boolean isExcluded(ResolvedFieldDeclaration declaredField) {
+        if (exclusionRules.isEmpty()) {
+            return false;
+        }
+        try {
+            if (declaredField instanceof JavaParserFieldDeclaration) {
+                JavaParserFieldDeclaration field = (JavaParserFieldDeclaration) declaredField;
+                for (AnnotationExpr annotation : field.getWrappedNode().getAnnotations()) {
+                    if (exclusionRules.excludesAnnotation(annotation.getNameAsString())) {
+                        return true;
+                    }
+                }
+                Boolean excluded = isExcluded(field.getVariableDeclarator().getType());
+                if (excluded != null) {
+                    return excluded;
+                }
+            } else if (declaredField instanceof JavassistFieldDeclaration) {
+                CtField ctField = ctField((JavassistFieldDeclaration) declaredField);
+                for (String tag : new String[]{AnnotationsAttribute.visibleTag, AnnotationsAttribute.invisibleTag}) {
+                    AnnotationsAttribute attribute = (AnnotationsAttribute) ctField.getFieldInfo2().getAttribute(tag);
+                    if (attribute == null) {
+                        continue;
+                    }
+                    for (javassist.bytecode.annotation.Annotation annotation : attribute.getAnnotations()) {
+                        if (exclusionRules.excludesAnnotation(annotation.getTypeName())) {
+                            return true;
+                        }
+                    }
+                }
+                SignatureAttribute signature = (SignatureAttribute) ctField.getFieldInfo2().getAttribute(SignatureAttribute.tag);
+                for (String className : classNames(signature == null ? ctField.getFieldInfo2().getDescriptor() : signature.getSignature())) {
+                    if (exclusionRules.excludesType(className)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return isExcluded(declaredField.getType());
+        } catch (Exception e) {
+            log.warn(e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isExcluded(ResolvedType resolvedType) {
+        if (resolvedType.isArray()) {
+            return isExcluded(resolvedType.asArrayType().getComponentType());
+        }
+        if (!resolvedType.isReferenceType()) {
+            return false;
+        }
+        ResolvedReferenceType referenceType = resolvedType.asReferenceType();
+        if (exclusionRules.excludesType(referenceType.getQualifiedName())) {
+            return true;
+        }
+        for (Pair<ResolvedTypeParameterDeclaration, ResolvedType> typeParameter : referenceType.getTypeParametersMap()) {
+            if (isExcluded(typeParameter.b)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按源码中的类型名匹配, 包括泛型参数与数组元素.
+     *
+     * @return 类型名可能对应的全名中只有一部分被排除时返回 null, 需要解析后确定
+     */
+    private Boolean isExcluded(Type type) {
+        boolean ambiguous = false;
+        for (ClassOrInterfaceType classType : type.findAll(ClassOrInterfaceType.class)) {
+            if (classType.getParentNode().filter(parent -> parent instanceof ClassOrInterfaceType
+                    && ((ClassOrInterfaceType) parent).getScope().orElse(null) == classType).isPresent()) {
+                // 外层类型名的一部分, 与完整的类型名一起匹配
+                continue;
+            }
+            List<String> qualifiedNames = qualifiedNames(classType);
+            if (qualifiedNames.isEmpty()) {
+                continue;
+            }
+            int excluded = 0;
+            for (String qualifiedName : qualifiedNames) {
+                if (exclusionRules.excludesType(qualifiedName)) {
+                    excluded++;
+                }
+            }
+            if (excluded == qualifiedNames.size()) {
+                return true;
+            }
+            ambiguous |= excluded > 0;
+        }
+        return ambiguous ? null : false;
+    }
+
+    /**
+     * 源码中的类型名可能对应的全名, 类型变量返回空列表. 外层类中声明的成员类型与单类型 import 可以唯一确定,
+     * 否则为全名本身、同包、按需 import 以及 java.lang 中的类型. 继承自父类的成员类型需要解析才能确定, 不在其中.
+     */
+    private static List<String> qualifiedNames(ClassOrInterfaceType type) {
+        String name = type.getNameAsString();
+        for (Optional<ClassOrInterfaceType> scope = type.getScope(); scope.isPresent(); scope = scope.get().getScope()) {
+            name = scope.get().getNameAsString() + "." + name;
+        }
+        int dot = name.indexOf('.');
+        String first = dot < 0 ? name : name.substring(0, dot);
+        Optional<CompilationUnit> compilationUnit = type.findCompilationUnit();
+        if (!compilationUnit.isPresent()) {
+            return Collections.singletonList(name);
+        }
+        CompilationUnit cu = compilationUnit.get();
+        String packageName = cu.getPackageDeclaration().map(NodeWithName::getNameAsString).orElse("");
+        List<TypeDeclaration<?>> enclosingTypes = new ArrayList<>();
+        for (Optional<Node> parent = type.getParentNode(); parent.isPresent(); parent = parent.get().getParentNode()) {
+            if (parent.get() instanceof TypeDeclaration) {
+                enclosingTypes.add(0, (TypeDeclaration<?>) parent.get());
+            }
+        }
+        String enclosingName = packageName;
+        String member = null;
+        for (TypeDeclaration<?> enclosingType : enclosingTypes) {
+            if (dot < 0 && enclosingType instanceof ClassOrInterfaceDeclaration) {
+                for (TypeParameter typeParameter : ((ClassOrInterfaceDeclaration) enclosingType).getTypeParameters()) {
+                    if (typeParameter.getNameAsString().equals(name)) {
+                        return Collections.emptyList();
+                    }
+                }
+            }
+            enclosingName = enclosingName.isEmpty() ? enclosingType.getNameAsString() : enclosingName + "." + enclosingType.getNameAsString();
+            for (BodyDeclaration<?> declaration : enclosingType.getMembers()) {
+                if (declaration instanceof TypeDeclaration && ((TypeDeclaration<?>) declaration).getNameAsString().equals(first)) {
+                    // 内层声明的成员类型遮蔽外层的同名类型
+                    member = enclosingName + "." + name;
+                }
+            }
+        }
+        if (member != null) {
+            return Collections.singletonList(member);
+        }
+        List<String> qualifiedNames = new ArrayList<>();
+        qualifiedNames.add(name);
+        for (ImportDeclaration importDeclaration : cu.getImports()) {
+            String importName = importDeclaration.getNameAsString();
+            if (importDeclaration.isAsterisk()) {
+                qualifiedNames.add(importName + "." + name);
+            } else if (importName.equals(first) || importName.endsWith("." + first)) {
+                return Collections.singletonList(importName + name.substring(first.length()));
+            }
+        }
+        if (!packageName.isEmpty()) {
+            qualifiedNames.add(packageName + "." + name);
+        }
+        qualifiedNames.add("java.lang." + name);
+        return qualifiedNames;
+    }
+
+    /**
+     * 字段描述符或泛型签名中引用的类名, 嵌套类以 '.' 分隔.
+     */
+    private static List<String> classNames(String signature) {
+        List<String> classNames = new ArrayList<>();
+        int i = 0;
+        while (i < signature.length()) {
+            char c = signature.charAt(i);
+            if (c == 'L' || c == 'T' || c == '.') {
+                // 类名、类型变量或泛型类的内部类, 以 ';' 结束, 类名后可能紧跟泛型参数
+                int end = i + 1;
+                while (end < signature.length() && signature.charAt(end) != ';' && signature.charAt(end) != '<') {
+                    end++;
+                }
+                if (c == 'L') {
+                    classNames.add(signature.substring(i + 1, end).replace('/', '.').replace('$', '.'));
+                }
+                i = end + 1;
+            } else {
+                i++;
+            }
+        }
+        return classNames;
+    }
+
+    private static CtField ctField(JavassistFieldDeclaration declaredField) throws ReflectiveOperationException {
+        Field field = JavassistFieldDeclaration.class.getDeclaredField("ctField");
+        field.setAccessible(true);
+        return (CtField) field.get(declaredField);
     }
 
-    private final Map<String, Boolean> parentClassMap = new HashMap<>();
+    private void recordFailure(Exception e, String symbol) {
+        if (e instanceof UnsolvedSymbolException && ((UnsolvedSymbolException) e).getName() != null) {
+            symbol = ((UnsolvedSymbolException) e).getName();
+        }
+        context.getCostReport().recordFailure(symbol);
+    }
 
-    private Property resolveRefProperty(ResolvedReferenceType resolvedReferenceType) {
-        ObjectProperty objectProperty = new ObjectProperty(new LinkedHashMap<>());
-        referencePropertyMap.put(resolvedReferenceType.toString(), objectProperty);
+    /**
+     * @param objectProperty 展开前登记的对象, 递归引用在展开期间得到的就是它
+     */
+    private Property doResolveRefProperty(ResolvedReferenceType resolvedReferenceType, ObjectProperty objectProperty) {
         if (!resolvedReferenceType.getTypeDeclaration().isEnum()) {
-            if (RECURSION_ANCESTOR) {
+            if (context.isRecursionAncestor()) {
                 List<ResolvedReferenceType> ancestors = resolvedReferenceType.getTypeDeclaration().getAncestors();
                 for (ResolvedReferenceType ancestor : ancestors) {
                     try {
                         if (!ancestor.getTypeDeclaration().isClass()) {
                             continue;
                         }
-                        Class<?> aClass = Class.forName(ancestor.getQualifiedName());
-                        if (Collection.class.isAssignableFrom(aClass)
-                                || Iterable.class.isAssignableFrom(aClass)
-                                || Map.class.isAssignableFrom(aClass)) {
+                        String ancestorName = ancestor.getQualifiedName();
+                        if (exclusionRules.excludesType(ancestorName)) {
                             continue;
                         }
-                        Property property = resolveRefProperty(ancestor);
-                        if (property instanceof ObjectProperty) {
-                            ObjectProperty op = (ObjectProperty) property;
-                            for (Map.Entry<String, Property> entry : op.getProperties().entrySet()) {
-                                objectProperty.property(entry.getKey(), entry.getValue());
-                            }
+                        if (!classExists(ancestorName)) {
+                            continue;
+                        }
+                        if (classHierarchy.isSubtypeOf(ancestorName, Collection.class.getName())
+                                || classHierarchy.isSubtypeOf(ancestorName, Iterable.class.getName())
+                                || classHierarchy.isSubtypeOf(ancestorName, Map.class.getName())) {
+                            continue;
                         }
+                        inherit(objectProperty, resolveCachedRefProperty(ancestor));
                     } catch (Exception e) {
-                        dependencyGraph.addDependency(resolvedReferenceType.getTypeDeclaration().getName(), ancestor.getTypeDeclaration().getName());
+                        recordFailure(e, ancestor.getQualifiedName());
                         log.error(e.getMessage());
                     }
                 }
@@ -150,24 +715,14 @@ public class ResolveSwaggerType {
                 if (!qualifiedName.contains("java.lang")
                         && !qualifiedName.contains("java.util")
                         && !"java.lang.Object".equals(qualifiedName)
-                        && (parentClassMap.get(resolvedReferenceType.getQualifiedName() + "." + qualifiedName)) == null
+                        && !exclusionRules.excludesType(qualifiedName)
                 ) {
-                    parentClassMap.put(resolvedReferenceType.getQualifiedName() + "." + qualifiedName, true);
-                    Property property = resolveRefProperty(allClassesAncestor);
-                    if (property instanceof ObjectProperty) {
-                        Map<String, Property> properties = ((ObjectProperty) property).getProperties();
-                        if (properties != null && !properties.isEmpty()) {
-                            for (Map.Entry<String, Property> entry : properties.entrySet()) {
-                                objectProperty.property(entry.getKey(), entry.getValue());
-                            }
-                        }
-                    }
+                    inherit(objectProperty, resolveCachedRefProperty(allClassesAncestor));
                 }
             }
 
 
             for (ResolvedFieldDeclaration declaredField : declaredFields) {
-                ResolvedType resolvedType = declaredField.getType();
                 String name = declaredField.getName();
 
                 if (name.toLowerCase().equalsIgnoreCase("unknownFields") ||
@@ -177,6 +732,10 @@ public class ResolveSwaggerType {
                         name.toLowerCase().equalsIgnoreCase("bitField0_")) {
                     continue;
                 }
+                if (!declaredField.isStatic() && isExcluded(declaredField)) {
+                    continue;
+                }
+                ResolvedType resolvedType = declaredField.getType();
                 if (name.endsWith("_")) {
                     name = name.substring(0, name.length() - 1);
                 }
@@ -191,11 +750,10 @@ public class ResolveSwaggerType {
                     } else {
                         property = resolve(resolvedType);
                     }
-                    wrappedNode.getJavadocComment().ifPresent(c -> {
-                        Javadoc javadoc = c.asJavadocComment().parse();
-                        JavadocDescription description = javadoc.getDescription();
-                        property.description(description.toText());
-                    });
+                    if (isDecorated(wrappedNode)) {
+                        property = propertyPool.mutable(property);
+                    }
+                    Javadocs.description(wrappedNode).ifPresent(property::description);
 
                     name = getFiledname(wrappedNode, name);
                     objectProperty.property(name, property);
@@ -301,9 +859,11 @@ public class ResolveSwaggerType {
                     if (declaredField instanceof JavassistFieldDeclaration) {
                         JavassistFieldDeclaration javassistFieldDeclaration = (JavassistFieldDeclaration) declaredField;
                         try {
-                            Field field = javassistFieldDeclaration.getClass().getDeclaredField("ctField");
-                            field.setAccessible(true);
-                            CtField ctField = (CtField) field.get(javassistFieldDeclaration);
+                            CtField ctField = ctField(javassistFieldDeclaration);
+                            if (ctField.getFieldInfo2().getAttribute(AnnotationsAttribute.visibleTag) != null
+                                    || ctField.getFieldInfo2().getAttribute(AnnotationsAttribute.invisibleTag) != null) {
+                                property = propertyPool.mutable(property);
+                            }
                             JsonProperty jsonProperty = (JsonProperty) ctField.getAnnotation(JsonProperty.class);
                             if (jsonProperty != null && StringUtils.isNotBlank(jsonProperty.value())) {
                                 name = jsonProperty.value();
@@ -375,7 +935,7 @@ public class ResolveSwaggerType {
             String name = javaParserClassDeclaration.getName();
             objectProperty.name(name);
             ClassOrInterfaceDeclaration wrappedNode = javaParserClassDeclaration.getWrappedNode();
-            wrappedNode.getJavadocComment().ifPresent(c -> objectProperty.description(c.parse().toText()));
+            Javadocs.parse(wrappedNode).ifPresent(javadoc -> objectProperty.description(javadoc.toText()));
         }
 
 
@@ -389,46 +949,35 @@ public class ResolveSwaggerType {
         if (typeDeclaration instanceof ReflectionInterfaceDeclaration) {
             List<Pair<ResolvedTypeParameterDeclaration, ResolvedType>> typeParametersMap = resolvedReferenceType.getTypeParametersMap();
             try {
-                Class<?> aClass = Class.forName(typeDeclaration.getId());
-                if (Set.class.isAssignableFrom(aClass)) {
+                String id = typeDeclaration.getId();
+                boolean exists = classExists(id);
+                if (exists && classHierarchy.isSubtypeOf(id, Set.class.getName())) {
                     if (!typeParametersMap.isEmpty()) {
-                        String itemName = typeParametersMap.get(0).b.toString();
-                        Property value = referencePropertyMap.get(itemName);
-                        if (value == null) {
-                            value = resolve(typeParametersMap.get(0).b);
-                        }
+                        Property value = resolve(typeParametersMap.get(0).b);
                         if (value instanceof ObjectProperty && value.getName() != null) {
                             return new ArrayProperty(new RefProperty("#/definitions/" + value.getName()));
                         }
                         return new ArrayProperty(value).uniqueItems();
                     }
-                    return new ArrayProperty(new ObjectProperty(new LinkedHashMap<>())).uniqueItems();
-                } else if (Collection.class.isAssignableFrom(aClass)) {
+                    return new ArrayProperty(emptyObject()).uniqueItems();
+                } else if (exists && classHierarchy.isSubtypeOf(id, Collection.class.getName())) {
                     if (!typeParametersMap.isEmpty()) {
-                        String itemName = typeParametersMap.get(0).b.toString();
-                        Property value = referencePropertyMap.get(itemName);
-                        if (value == null) {
-                            value = resolve(typeParametersMap.get(0).b);
-                        }
+                        Property value = resolve(typeParametersMap.get(0).b);
                         if (value instanceof ObjectProperty && value.getName() != null) {
                             return new ArrayProperty(new RefProperty("#/definitions/" + value.getName()));
                         }
                         return new ArrayProperty(value);
                     }
-                    return new ArrayProperty(new ObjectProperty(new LinkedHashMap<>()));
-                } else if (Map.class.isAssignableFrom(aClass) || TreeMap.class.isAssignableFrom(aClass)) {
+                    return new ArrayProperty(emptyObject());
+                } else if (exists && classHierarchy.isSubtypeOf(id, Map.class.getName())) {
                     if (typeParametersMap.size() > 1) {
-                        String itemName = typeParametersMap.get(1).b.toString();
-                        Property value = referencePropertyMap.get(itemName);
-                        if (value == null) {
-                            value = resolve(typeParametersMap.get(1).b);
-                        }
+                        Property value = resolve(typeParametersMap.get(1).b);
                         if (value instanceof ObjectProperty && value.getName() != null) {
                             return new MapProperty().additionalProperties(new RefProperty("#/definitions/" + value.getName()));
                         }
                         return new MapProperty().additionalProperties(value);
                     }
-                    return new MapProperty().additionalProperties(new ObjectProperty(new LinkedHashMap<>()));
+                    return new MapProperty().additionalProperties(emptyObject());
 
                 }
             } catch (Exception e) {
@@ -451,15 +1000,15 @@ public class ResolveSwaggerType {
             StringBuffer sb = new StringBuffer();
             for (EnumConstantDeclaration entry : wrappedNode.getEntries()) {
                 String fieldName = entry.getName().asString();
-                entry.getJavadocComment().ifPresent(c -> sb.append(fieldName)
+                Javadocs.description(entry).ifPresent(description -> sb.append(fieldName)
                         .append(":")
-                        .append(c.parse().getDescription().toText())
+                        .append(description)
                         .append("\t")
                 );
                 enums.add(fieldName);
             }
             Property enumProperty = new StringProperty()._enum(enums).description(sb.toString());
-            propertyMap.put(name, enumProperty);
+            define(name, enumProperty);
             return enumProperty;
 
         }
@@ -473,7 +1022,7 @@ public class ResolveSwaggerType {
                 enums.add(enumConstant.getName());
             }
             Property enumProperty = new StringProperty()._enum(enums);
-            propertyMap.put(name, enumProperty);
+            define(name, enumProperty);
             return enumProperty;
 
         }
@@ -491,7 +1040,7 @@ public class ResolveSwaggerType {
                 objectProperty.name(objectProperty.getName() + "«" + String.join(",", typeNames) + "»");
             }
 
-            propertyMap.put(objectProperty.getName(), objectProperty);
+            define(objectProperty.getName(), objectProperty);
         }
 
         return objectProperty;
@@ -527,6 +1076,23 @@ public class ResolveSwaggerType {
         return name;
     }
 
+    private static boolean isDecorated(FieldDeclaration wrappedNode) {
+        if (wrappedNode.getJavadocComment().isPresent()) {
+            return true;
+        }
+        for (AnnotationExpr annotation : wrappedNode.getAnnotations()) {
+            String name = annotation.getNameAsString();
+            if (DECORATING_ANNOTATIONS.contains(name.substring(name.lastIndexOf('.') + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Property emptyObject() {
+        return propertyPool.get("object", () -> new ObjectProperty(new LinkedHashMap<>()));
+    }
+
     private boolean fieldIsRequired(FieldDeclaration wrappedNode) {
         Optional<AnnotationExpr> jsonProperty = wrappedNode.getAnnotationByClass(JsonProperty.class);
         Optional<AnnotationExpr> notNull = wrappedNode.getAnnotationByClass(NotNull.class);
@@ -563,6 +1129,31 @@ public class ResolveSwaggerType {
         return modelMap;
     }
 
+    /**
+     * 已定义的模型数, 与 {@link #getModelMap(int)} 配合使用.
+     */
+    public int getDefinedCount() {
+        return definitions.size();
+    }
+
+    /**
+     * 最先定义的 count 个模型. 源文件被放弃后其线程仍可能继续定义与修改模型, 放弃前已访问完的源文件定义的模型是完整的.
+     */
+    public Map<String, Model> getModelMap(int count) {
+        List<Map.Entry<String, Property>> defined;
+        synchronized (definitions) {
+            defined = new ArrayList<>(definitions.subList(0, Math.min(count, definitions.size())));
+        }
+        Map<String, Model> modelMap = new LinkedHashMap<>();
+        for (Map.Entry<String, Property> entry : defined) {
+            Model model = toModel(entry.getValue());
+            if (model != null) {
+                modelMap.put(entry.getKey(), model);
+            }
+        }
+        return modelMap;
+    }
+
     private Map<String, ResolvedType> resolveTypeParameter(ResolvedType resolvedType) {
         Map<String, ResolvedType> map = new HashMap<>();
         if (resolvedType.isReferenceType()) {
@@ -642,6 +1233,9 @@ public class ResolveSwaggerType {
         if (property instanceof ObjectProperty && ((ObjectProperty) property).getProperties() != null) {
             ModelImpl model = new ModelImpl();
             model.setDescription(property.getDescription());
+            if (property.getVendorExtensions() != null && !property.getVendorExtensions().isEmpty()) {
+                model.setVendorExtensions(property.getVendorExtensions());
+            }
             Map<String, Property> properties = ((ObjectProperty) property).getProperties();
             for (Map.Entry<String, Property> entry : properties.entrySet()) {
                 Property value = entry.getValue();
@@ -703,62 +1297,64 @@ public class ResolveSwaggerType {
     }
 
 
-    public static Property resolveBaseType(String clazzName) {
+    public Property resolveBaseType(String clazzName) {
         if ("int".equals(clazzName)
                 || "java.lang.Integer".equals(clazzName)
                 || "java.lang.Short".equals(clazzName)
                 || "short".equals(clazzName)
         ) {
-            return new IntegerProperty();
+            return propertyPool.get("integer", IntegerProperty::new);
         }
 
         if ("long".equals(clazzName) || "java.lang.Long".equals(clazzName)) {
-            return new LongProperty();
+            return propertyPool.get("long", LongProperty::new);
         }
 
         if ("double".equals(clazzName) || "java.lang.Double".equals(clazzName)) {
-            return new DoubleProperty();
+            return propertyPool.get("double", DoubleProperty::new);
         }
 
         if ("java.math.BigInteger".equals(clazzName)) {
-            return new StringProperty()
-                    .example("100");
+            return propertyPool.get("java.math.BigInteger", () -> new StringProperty()
+                    .example("100"));
         }
 
         if ("java.math.BigDecimal".equals(clazzName)) {
-            return new StringProperty()
-                    .example("0.88");
+            return propertyPool.get("java.math.BigDecimal", () -> new StringProperty()
+                    .example("0.88"));
         }
 
         if ("float".equals(clazzName) || "java.lang.Float".equals(clazzName)) {
-            return new FloatProperty();
+            return propertyPool.get("float", FloatProperty::new);
         }
 
         if ("boolean".equals(clazzName) || "java.lang.Boolean".equals(clazzName)) {
-            return new BooleanProperty();
+            return propertyPool.get("boolean", BooleanProperty::new);
         }
 
         if ("byte".equals(clazzName) || "java.lang.Byte".equals(clazzName)) {
-            return new IntegerProperty();
+            return propertyPool.get("integer", IntegerProperty::new);
         }
 
         if ("byte[]".equals(clazzName) || "java.lang.Byte[]".equals(clazzName)) {
-            return new ByteArrayProperty();
+            return propertyPool.get("byte[]", ByteArrayProperty::new);
         }
 
         if ("string".equalsIgnoreCase(clazzName) || "java.lang.String".equalsIgnoreCase(clazzName) || "java.lang.CharSequence".equalsIgnoreCase(clazzName)) {
-            return new StringProperty();
+            return propertyPool.get("string", StringProperty::new);
         }
 
         if ("java.joda.LocalDate".equals(clazzName) ||
                 "java.time.LocalDate".equals(clazzName)) {
-            return new StringProperty("data-time").example(DATE_FORMAT);
+            String example = context.getDateFormat();
+            return propertyPool.get("date:" + example, () -> new StringProperty("data-time").example(example));
         }
 
 
         if ("java.time.LocalTime".equals(clazzName) ||
                 "java.joda.LocalTime".equals(clazzName)) {
-            return new StringProperty("data-time").example(TIME_FORMAT);
+            String example = context.getTimeFormat();
+            return propertyPool.get("time:" + example, () -> new StringProperty("data-time").example(example));
         }
 
         if ("date".equals(clazzName) || "java.util.Date".equals(clazzName) ||
@@ -771,15 +1367,16 @@ public class ResolveSwaggerType {
                 "java.sql.Timestamp".equals(clazzName)
 
         ) {
-            return new StringProperty("data-time").example(DATETIME_FORMAT);
+            String example = context.getDatetimeFormat();
+            return propertyPool.get("datetime:" + example, () -> new StringProperty("data-time").example(example));
         }
 
         if ("org.springframework.web.multipart.MultipartFile".equals(clazzName)) {
-            return new FileProperty();
+            return propertyPool.get("file", FileProperty::new);
         }
 
         if ("java.util.UUID".equals(clazzName)) {
-            return new UUIDProperty();
+            return propertyPool.get("uuid", UUIDProperty::new);
         }
 
         if ("com.alibaba.fastjson.JSONObject".equals(clazzName)
@@ -802,85 +1399,75 @@ public class ResolveSwaggerType {
         return null;
     }
 
-    public static Class<?> isGrpcType(String clazzName) {
+    public ObjectProperty resolveGrpcType(Class<?> generatedMessageV3) {
         try {
-            Class<?> aClass = Class.forName(clazzName);
-            if (AbstractMessage.class.isAssignableFrom(aClass)) {
-                return aClass;
-            }
+            Method getDescriptor = generatedMessageV3.getMethod("getDescriptor");
+            return resolveGrpcType((Descriptors.Descriptor) getDescriptor.invoke(null));
         } catch (Exception ignore) {
         }
-        return null;
+        return new ObjectProperty();
     }
 
-    public static ObjectProperty resolveGrpcType(Class<?> generatedMessageV3) {
-        try {
-            String simpleName = generatedMessageV3.getSimpleName();
-            Method getDescriptor = generatedMessageV3.getMethod("getDescriptor");
-            Descriptors.Descriptor invoke = (Descriptors.Descriptor) getDescriptor.invoke(null);
-            List<Descriptors.FieldDescriptor> allFields = invoke.getFields();
-            ObjectProperty refModel = new ObjectProperty();
-            refModel.setName(simpleName);
-            refModel.setType(simpleName);
-            for (Descriptors.FieldDescriptor fieldDescriptor : allFields) {
-                Property property = resolveGrpcType(fieldDescriptor);
-                if (property == null) {
-                    continue;
-                }
-                refModel.property(fieldDescriptor.getName(), property);
+    /**
+     * 注册消息及其引用的全部消息的 definitions, 返回消息本身.
+     */
+    public ObjectProperty resolveGrpcType(Descriptors.Descriptor descriptor) {
+        ObjectProperty property = null;
+        for (Map.Entry<String, ObjectProperty> entry : protobufModels.resolve(descriptor).entrySet()) {
+            if (property == null) {
+                property = entry.getValue();
             }
-            return refModel;
-        } catch (Exception ignore) {
+            define(entry.getKey(), entry.getValue());
         }
-        return new ObjectProperty();
+        return property;
     }
 
-    public static Property resolveGrpcType(Descriptors.FieldDescriptor field) {
-        Descriptors.FieldDescriptor.Type type = field.getType();
-        String fieldType = type.name();
-        String name = field.getJsonName();
-        if (name.endsWith("_")) {
-            name = name.substring(0, name.length() - 2);
+
+    /**
+     * 一次类型展开: 展开前登记的对象、收集 definitions 的 capture, 以及结果依赖的最外层未完成类型.
+     */
+    private static final class Expansion {
+
+        private final ObjectProperty property;
+
+        private final int level;
+
+        private final ResolvedTypeCache.Capture capture = new ResolvedTypeCache.Capture();
+
+        private final List<String> dependents = new ArrayList<>();
+
+        private Expansion blocker;
+
+        private Expansion(ObjectProperty property, int level) {
+            this.property = property;
+            this.level = level;
         }
 
-        if (name.toLowerCase().equalsIgnoreCase("unknownFields") ||
-                name.toLowerCase().equalsIgnoreCase("memoizedSize") ||
-                name.toLowerCase().equalsIgnoreCase("memoizedHashCode") ||
-                name.toLowerCase().equalsIgnoreCase("memoizedIsInitialized") ||
-                name.toLowerCase().equalsIgnoreCase("bitField0_")) {
-            return null;
+        private Expansion(ObjectProperty property, Expansion blocker) {
+            this(property, blocker.level);
+            this.blocker = blocker;
         }
 
-        if (fieldType.toLowerCase().startsWith("int")) {
-            IntegerProperty integerProperty = new IntegerProperty();
-            integerProperty.setName(name);
-            integerProperty.setType(fieldType);
-            return integerProperty;
+        private void truncate() {
+            capture.truncate();
         }
+    }
 
-        if (fieldType.equalsIgnoreCase("Message")) {
-            ObjectProperty objectProperty = new ObjectProperty();
-            for (Descriptors.FieldDescriptor fieldDescriptor : field.getMessageType().getFields()) {
-                Property subNameType = resolveGrpcType(fieldDescriptor);
-                if (subNameType == null) {
-                    continue;
-                }
-                objectProperty.setName(name);
-                objectProperty.setType(fieldDescriptor.getMessageType().getName());
-                objectProperty.property(subNameType.getName(), subNameType);
+    /**
+     * 对正在展开的类型的引用. 名称在展开完成后才确定, 转换为 Model 时按名称生成 $ref; 调用方设置描述等属性不会影响被引用的类型.
+     */
+    private static final class RecursiveRefProperty extends ObjectProperty {
 
-            }
-            if (field.isRepeated()) {
-                return new ArrayProperty()
-                        .items(objectProperty);
-            }
-            return objectProperty;
+        private final ObjectProperty target;
 
+        private RecursiveRefProperty(ObjectProperty target) {
+            super(new LinkedHashMap<>());
+            this.target = target;
         }
-        StringProperty property = new StringProperty();
-        property.setName(name);
-        property.setType(fieldType);
-        return property;
-    }
 
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+    }
 }
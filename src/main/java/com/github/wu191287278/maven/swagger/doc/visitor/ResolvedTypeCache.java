@@ -0,0 +1,96 @@
+package com.github.wu191287278.maven.swagger.doc.visitor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.Property;
+
+/**
+ * 已解析类型的缓存, 以 ResolvedType#describe() 为键, 同时记录解析该类型时产生的全部 definitions,
+ * 命中时无需再次访问 symbol solver 即可还原完整的模型.
+ *
+ * @author yu.wu
+ */
+public class ResolvedTypeCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    Entry get(String key) {
+        return entries.get(key);
+    }
+
+    void put(String key, ObjectProperty property, Capture capture) {
+        entries.putIfAbsent(key, new Entry(copy(property), capture));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    static ObjectProperty copy(ObjectProperty property) {
+        ObjectProperty copy = new ObjectProperty(property.getProperties() == null ? null : new LinkedHashMap<>(property.getProperties()));
+        copy.setName(property.getName());
+        copy.setDescription(property.getDescription());
+        copy.setTitle(property.getTitle());
+        return copy;
+    }
+
+    /**
+     * 解析一个类型期间产生的 definitions.
+     */
+    static class Capture {
+
+        private final Map<String, Property> definitions = new LinkedHashMap<>();
+
+        private boolean truncated;
+
+        void define(String name, Property property) {
+            definitions.put(name, property);
+        }
+
+        Map<String, Property> definitions() {
+            return definitions;
+        }
+
+        /**
+         * 解析期间有类型因预算或超时被截断, 或引用了外层尚未完成的类型, 结果不完整, 不写入缓存.
+         */
+        void truncate() {
+            truncated = true;
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    static class Entry {
+
+        private final ObjectProperty property;
+
+        private final Map<String, Property> definitions;
+
+        private Entry(ObjectProperty property, Capture capture) {
+            this.property = property;
+            this.definitions = Collections.unmodifiableMap(new LinkedHashMap<>(capture.definitions));
+        }
+
+        /**
+         * 返回副本, 调用方修改 description/required 不会影响缓存.
+         */
+        ObjectProperty getProperty() {
+            return copy(property);
+        }
+
+        Map<String, Property> getDefinitions() {
+            return definitions;
+        }
+    }
+}
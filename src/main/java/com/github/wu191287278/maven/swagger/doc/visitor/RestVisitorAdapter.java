@@ -3,7 +3,6 @@ package com.github.wu191287278.maven.swagger.doc.visitor;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
-import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -12,15 +11,14 @@ import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
-import com.github.javaparser.ast.comments.JavadocComment;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.javadoc.Javadoc;
 import com.github.javaparser.javadoc.JavadocBlockTag;
-import com.github.javaparser.javadoc.description.JavadocDescription;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
-import com.github.wu191287278.maven.swagger.doc.SwaggerDocs;
+import com.github.wu191287278.maven.swagger.doc.GenerationContext;
+import com.github.wu191287278.maven.swagger.doc.concurrent.Watchdog;
 import com.github.wu191287278.maven.swagger.doc.domain.Request;
 import com.github.wu191287278.maven.swagger.doc.utils.CamelUtils;
 import com.google.common.collect.ImmutableMap;
@@ -39,7 +37,9 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
 
     private Logger log = LoggerFactory.getLogger(RestVisitorAdapter.class);
 
-    private final ResolveSwaggerType resolveSwaggerType = new ResolveSwaggerType();
+    private final GenerationContext context;
+
+    private final ResolveSwaggerType resolveSwaggerType;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -89,10 +89,21 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
     };
 
     public RestVisitorAdapter() {
+        this(new GenerationContext());
     }
 
 
     public RestVisitorAdapter(Consumer<String> consumer) {
+        this(new GenerationContext(), consumer);
+    }
+
+    public RestVisitorAdapter(GenerationContext context) {
+        this.context = context;
+        this.resolveSwaggerType = new ResolveSwaggerType(context);
+    }
+
+    public RestVisitorAdapter(GenerationContext context, Consumer<String> consumer) {
+        this(context);
         this.consumer = consumer;
     }
 
@@ -103,9 +114,22 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
                 .filter(a -> mappings.contains(a.getNameAsString()))
                 .collect(Collectors.toList());
 
-        if (annotationExprs.isEmpty()) return;
+        if (annotationExprs.isEmpty() || resolveSwaggerType.getWatchdog().isExpired()) return;
 
+        long start = System.nanoTime();
+        resolveSwaggerType.startEndpoint();
+        try {
+            visitEndpoint(n, swagger);
+        } finally {
+            String controller = n.getParentNode()
+                    .filter(p -> p instanceof ClassOrInterfaceDeclaration)
+                    .map(p -> ((ClassOrInterfaceDeclaration) p).getNameAsString())
+                    .orElse("");
+            context.getCostReport().recordEndpoint(controller, n.getNameAsString(), System.nanoTime() - start);
+        }
+    }
 
+    private void visitEndpoint(MethodDeclaration n, Swagger swagger) {
         Request request = new Request();
         Map<String, Path> paths = swagger.getPaths();
         parse((ClassOrInterfaceDeclaration) n.getParentNode().get(), n, request);
@@ -182,7 +206,7 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
         Tag tag = new Tag()
                 .name(n.getNameAsString());
         swagger.addTag(tag);
-        n.getJavadoc().ifPresent(c -> tag.description(StringUtils.isBlank(c.getDescription().toText()) ? null : c.getDescription().toText()));
+        Javadocs.description(n).ifPresent(description -> tag.description(StringUtils.isBlank(description) ? null : description));
         super.visit(n, swagger);
 
     }
@@ -351,7 +375,7 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
                 try {
                     ObjectProperty objectProperty = (ObjectProperty) property;
                     if (objectProperty.getProperties() != null && objectProperty.getProperties().size() > 0) {
-                        Map<String, Model> modelMap = SwaggerDocs.getModelMap();
+                        Map<String, Model> modelMap = context.getModelMap();
                         Model mode = modelMap.get(typeName);
                         if (mode != null) {
                             boolean isReplace = true;
@@ -439,7 +463,7 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
                                 if (property instanceof ObjectProperty) {
                                     ObjectProperty objectProperty = (ObjectProperty) property;
                                     if (objectProperty.getProperties() != null && objectProperty.getProperties().size() > 0) {
-                                        Map<String, Model> modelMap = SwaggerDocs.getModelMap();
+                                        Map<String, Model> modelMap = context.getModelMap();
                                         Model mode = modelMap.get(typeName);
                                         if (mode != null) {
                                             boolean isReplace = true;
@@ -552,10 +576,8 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
     private void parseMethodComment(MethodDeclaration n, Request request) {
         n.getJavadocComment().ifPresent(c -> {
             if (c.isJavadocComment()) {
-                JavadocComment javadocComment = c.asJavadocComment();
-                Javadoc parse = javadocComment.parse();
-                JavadocDescription description = parse.getDescription();
-                request.setSummary(description.toText());
+                Javadoc parse = Javadocs.parse(c.asJavadocComment());
+                request.setSummary(Javadocs.description(n).orElse(""));
                 for (JavadocBlockTag blockTag : parse.getBlockTags()) {
                     switch (blockTag.getTagName().toLowerCase()) {
                         case "throws":
@@ -614,7 +636,7 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
                 for (Map.Entry<String, String> entry : map.entrySet()) {
                     String key = entry.getKey();
                     String value = entry.getValue();
-                    Property resolveBaseType = ResolveSwaggerType.resolveBaseType(value);
+                    Property resolveBaseType = resolveSwaggerType.resolveBaseType(value);
                     if (resolveBaseType != null) {
                         objectProperty.property(key, resolveBaseType);
                     } else {
@@ -637,14 +659,28 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
     }
 
     public Map<String, Model> getModelMap() {
-        Map<String, Model> modelMap = resolveSwaggerType.getModelMap();
+        return toSnake(resolveSwaggerType.getModelMap());
+    }
+
+    public int getDefinedCount() {
+        return resolveSwaggerType.getDefinedCount();
+    }
+
+    /**
+     * 最先定义的 count 个模型, 见 {@link ResolveSwaggerType#getModelMap(int)}.
+     */
+    public Map<String, Model> getModelMap(int count) {
+        return toSnake(resolveSwaggerType.getModelMap(count));
+    }
+
+    private Map<String, Model> toSnake(Map<String, Model> modelMap) {
         if (!this.camel) {
             for (Map.Entry<String, Model> entry : modelMap.entrySet()) {
                 Model model = entry.getValue();
                 if (model instanceof ModelImpl) {
                     ModelImpl modelImpl = (ModelImpl) model;
                     Map<String, Property> properties = modelImpl.getProperties();
-                    Map<String, Property> convertModelMap = new HashMap<>();
+                    Map<String, Property> convertModelMap = new LinkedHashMap<>();
                     if (properties != null) {
                         for (Map.Entry<String, Property> modelEntry : properties.entrySet()) {
                             convertModelMap.put(CamelUtils.toSnake(modelEntry.getKey()), modelEntry.getValue());
@@ -668,7 +704,16 @@ public class RestVisitorAdapter extends VoidVisitorAdapter<Swagger> {
         return this;
     }
 
-    public void dependencyVisit(BiConsumer<String, String> consumer){
-        resolveSwaggerType.dependencyGraph.visit(consumer);
+    /**
+     * 超时后不再访问剩余接口.
+     */
+    public RestVisitorAdapter setWatchdog(Watchdog watchdog) {
+        resolveSwaggerType.setWatchdog(watchdog);
+        return this;
+    }
+
+    public RestVisitorAdapter setResolutionBudget(ResolutionBudget budget) {
+        resolveSwaggerType.setResolutionBudget(budget);
+        return this;
     }
 }
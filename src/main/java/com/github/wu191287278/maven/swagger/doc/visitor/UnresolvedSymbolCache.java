@@ -0,0 +1,36 @@
+package com.github.wu191287278.maven.swagger.doc.visitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 无法解析的符号与无法加载的类, 每个符号只尝试解析一次, 之后直接返回.
+ * <p>
+ * 源码中的类型以 "符号名@包名与 import" 为键, 同一个简单类名在 import 不同的文件中分别判断; 类以 "class:" + 全限定名为键.
+ * 每次命中的次数计入 {@link com.github.wu191287278.maven.swagger.doc.report.CostReport}.
+ *
+ * @author yu.wu
+ */
+public class UnresolvedSymbolCache {
+
+    private final Map<String, Boolean> symbols = new ConcurrentHashMap<>();
+
+    boolean contains(String key) {
+        return symbols.containsKey(key);
+    }
+
+    /**
+     * @return 首次记录时返回 true
+     */
+    boolean add(String key) {
+        return symbols.putIfAbsent(key, Boolean.TRUE) == null;
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    public void clear() {
+        symbols.clear();
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.wu191287278.swagger.starter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+/**
+ * 注册 {@link SwaggerSpecHandler}, 优先级高于默认的静态资源处理, 低于应用自身的 Controller.
+ *
+ * @author yu.wu
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass({HttpRequestHandler.class, SimpleUrlHandlerMapping.class})
+@ConditionalOnProperty(prefix = "swagger.spec", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(SwaggerSpecProperties.class)
+public class SwaggerSpecAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerSpecHandler swaggerSpecHandler(SwaggerSpecProperties properties, ResourceLoader resourceLoader) throws IOException {
+        return new SwaggerSpecHandler(properties, resourceLoader);
+    }
+
+    @Bean
+    public SimpleUrlHandlerMapping swaggerSpecHandlerMapping(SwaggerSpecProperties properties, SwaggerSpecHandler swaggerSpecHandler) {
+        String path = properties.getPath().endsWith("/") ? properties.getPath() : properties.getPath() + "/";
+        Map<String, Object> urlMap = new LinkedHashMap<>();
+        for (String filename : swaggerSpecHandler.getResources().keySet()) {
+            urlMap.put(path + filename, swaggerSpecHandler);
+        }
+        // 静态资源映射的顺序为 Ordered.LOWEST_PRECEDENCE - 1
+        return new SimpleUrlHandlerMapping(urlMap, Ordered.LOWEST_PRECEDENCE - 2);
+    }
+}
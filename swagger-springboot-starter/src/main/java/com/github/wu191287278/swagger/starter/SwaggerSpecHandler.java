@@ -0,0 +1,221 @@
+package com.github.wu191287278.swagger.starter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 直接从内存中返回插件生成的 swagger 文档.
+ * <p>
+ * 启动时一次性读取 classpath 中的 json/html 以及按 tag 拆分的分片(shards/模块名/tag.json), 使用插件构建时写入 swagger-etag.properties 的 SHA-256 作为强 ETag,
+ * 支持 If-None-Match 返回 304. 存在 .gz 文件时直接使用, 否则在启动时压缩一次.
+ *
+ * @author yu.wu
+ */
+public class SwaggerSpecHandler implements HttpRequestHandler {
+
+    public static final String ETAG_MANIFEST = "swagger-etag.properties";
+
+    public static final String SHARD_DIRECTORY = "shards/";
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerSpecHandler.class);
+
+    private final SwaggerSpecProperties properties;
+
+    private final Map<String, SwaggerSpecResource> resources;
+
+    public SwaggerSpecHandler(SwaggerSpecProperties properties, ResourceLoader resourceLoader) throws IOException {
+        this.properties = properties;
+        this.resources = Collections.unmodifiableMap(load(ResourcePatternUtils.getResourcePatternResolver(resourceLoader)));
+    }
+
+    public Map<String, SwaggerSpecResource> getResources() {
+        return resources;
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String method = request.getMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            response.setHeader("Allow", "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String lookupPath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        if (lookupPath == null) {
+            lookupPath = request.getRequestURI().substring(request.getContextPath().length());
+        }
+        String path = properties.getPath().endsWith("/") ? properties.getPath() : properties.getPath() + "/";
+        SwaggerSpecResource resource = lookupPath.startsWith(path) ? resources.get(lookupPath.substring(path.length())) : null;
+        if (resource == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        boolean gzip = resource.getGzipBytes() != null && acceptsGzip(request.getHeader("Accept-Encoding"));
+        String etag = gzip ? resource.getGzipEtag() : resource.getEtag();
+        if (resource.getGzipBytes() != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", properties.getCacheControl());
+        if (matches(request.getHeader("If-None-Match"), resource)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzip ? resource.getGzipBytes() : resource.getBytes();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(resource.getContentType());
+        response.setContentLength(body.length);
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        if (!head) {
+            OutputStream out = response.getOutputStream();
+            out.write(body);
+            out.flush();
+        }
+    }
+
+    private Map<String, SwaggerSpecResource> load(ResourcePatternResolver resolver) throws IOException {
+        String location = properties.getLocation().endsWith("/") ? properties.getLocation() : properties.getLocation() + "/";
+        Properties etags = new Properties();
+        Resource manifest = resolver.getResource(location + ETAG_MANIFEST);
+        if (manifest.exists()) {
+            try (InputStream in = manifest.getInputStream()) {
+                etags.load(in);
+            }
+        } else {
+            log.warn(location + ETAG_MANIFEST + " not found, computing ETags at startup");
+        }
+
+        Map<String, SwaggerSpecResource> resources = new LinkedHashMap<>();
+        for (String pattern : new String[]{"*.json", "*.html", SHARD_DIRECTORY + "*/*.json"}) {
+            for (Resource resource : resolver.getResources(location + pattern)) {
+                if (resource.getFilename() == null || !resource.isReadable()) {
+                    continue;
+                }
+                String filename = pattern.startsWith(SHARD_DIRECTORY) ? shardName(resource) : resource.getFilename();
+                byte[] bytes = read(resource);
+                String etag = etags.getProperty(filename);
+                if (etag == null || etag.isEmpty()) {
+                    etag = sha256(bytes);
+                }
+                byte[] gzipBytes = null;
+                Resource gz = resolver.getResource(location + filename + ".gz");
+                if (gz.exists()) {
+                    gzipBytes = read(gz);
+                } else if (bytes.length >= properties.getMinGzipSize()) {
+                    gzipBytes = gzip(bytes);
+                }
+                String contentType = filename.endsWith(".json") ? "application/json;charset=UTF-8" : "text/html;charset=UTF-8";
+                resources.put(filename, new SwaggerSpecResource(contentType, bytes, gzipBytes, "\"" + etag + "\""));
+                log.info("Serving " + properties.getPath() + "/" + filename + " (" + bytes.length + " bytes"
+                        + (gzipBytes == null ? "" : ", gzip " + gzipBytes.length + " bytes") + ")");
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * 分片相对于文档目录的路径, 即 shards/模块名/tag.json.
+     */
+    private static String shardName(Resource resource) throws IOException {
+        String url = StringUtils.uriDecode(resource.getURL().toString(), StandardCharsets.UTF_8);
+        int tag = url.lastIndexOf('/');
+        int module = url.lastIndexOf('/', tag - 1);
+        return SHARD_DIRECTORY + url.substring(module + 1);
+    }
+
+    /**
+     * If-None-Match 使用弱比较, 原始与压缩两种表示的 ETag 都视为命中.
+     */
+    private static boolean matches(String ifNoneMatch, SwaggerSpecResource resource) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || tag.equals(resource.getEtag()) || tag.equals(resource.getGzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!"gzip".equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().replace(" ", "");
+                if (param.matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            StreamUtils.copy(new ByteArrayInputStream(bytes), gzip);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.wu191287278.swagger.starter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * swagger 文档服务配置.
+ *
+ * @author yu.wu
+ */
+@ConfigurationProperties(prefix = "swagger.spec")
+public class SwaggerSpecProperties {
+
+    /**
+     * 是否启用.
+     */
+    private boolean enabled = true;
+
+    /**
+     * 插件输出目录在 classpath 中的位置, 与插件 outputDirectory 对应.
+     */
+    private String location = "classpath:static/swagger/";
+
+    /**
+     * 访问路径前缀.
+     */
+    private String path = "/swagger";
+
+    /**
+     * Cache-Control 响应头, 默认每次都通过 ETag 重新校验.
+     */
+    private String cacheControl = "no-cache";
+
+    /**
+     * 小于该字节数的文件不压缩.
+     */
+    private int minGzipSize = 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    public void setCacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    public int getMinGzipSize() {
+        return minGzipSize;
+    }
+
+    public void setMinGzipSize(int minGzipSize) {
+        this.minGzipSize = minGzipSize;
+    }
+}
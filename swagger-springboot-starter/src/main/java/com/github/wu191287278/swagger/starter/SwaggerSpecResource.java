@@ -0,0 +1,53 @@
+package com.github.wu191287278.swagger.starter;
+
+/**
+ * 常驻内存的文档内容及其 gzip 压缩版本.
+ *
+ * @author yu.wu
+ */
+public class SwaggerSpecResource {
+
+    private final String contentType;
+
+    private final byte[] bytes;
+
+    private final byte[] gzipBytes;
+
+    private final String etag;
+
+    public SwaggerSpecResource(String contentType, byte[] bytes, byte[] gzipBytes, String etag) {
+        this.contentType = contentType;
+        this.bytes = bytes;
+        this.gzipBytes = gzipBytes;
+        this.etag = etag;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * 为空表示不提供压缩版本.
+     */
+    public byte[] getGzipBytes() {
+        return gzipBytes;
+    }
+
+    /**
+     * 带引号的强 ETag.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 压缩版本是不同的表示, 强 ETag 需要与原始内容区分.
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+}